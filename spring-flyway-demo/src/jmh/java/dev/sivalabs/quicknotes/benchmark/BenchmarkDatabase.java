@@ -0,0 +1,140 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import dev.sivalabs.quicknotes.Application;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Application context on top of a PostgreSQL seeded with a benchmark sized dataset,
+ * by default 1M notes across 10k users.
+ * <p>
+ * Uses the server at {@code -Dbenchmark.jdbc-url} (with {@code benchmark.username} and {@code benchmark.password})
+ * when set, otherwise an embedded PostgreSQL. Its data directory under target/ survives between runs, so the
+ * dataset is only seeded once. The dataset size is set with {@code -Dbenchmark.users} and
+ * {@code -Dbenchmark.notes-per-user}, a change reseeds it.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BenchmarkDatabase.class);
+
+    static final int USERS = Integer.getInteger("benchmark.users", 10_000);
+    static final int NOTES_PER_USER = Integer.getInteger("benchmark.notes-per-user", 100);
+    private static final long FIRST_USER_ID = 1_000L;
+    private static final long FIRST_NOTE_ID = 10_000_000L;
+    private static final Path DATA_DIRECTORY = Path.of("target", "jmh-postgres");
+
+    private final EmbeddedPostgres embeddedPostgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkDatabase(EmbeddedPostgres embeddedPostgres, ConfigurableApplicationContext context) {
+        this.embeddedPostgres = embeddedPostgres;
+        this.context = context;
+    }
+
+    static BenchmarkDatabase start(String... properties) {
+        EmbeddedPostgres embeddedPostgres = null;
+        String jdbcUrl = System.getProperty("benchmark.jdbc-url");
+        String username = System.getProperty("benchmark.username", "postgres");
+        String password = System.getProperty("benchmark.password", "postgres");
+        if (jdbcUrl == null) {
+            try {
+                embeddedPostgres = EmbeddedPostgres.builder()
+                        .setDataDirectory(DATA_DIRECTORY.toFile())
+                        .setCleanDataDirectory(false)
+                        .start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+            jdbcUrl = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        List<String> allProperties = new ArrayList<>(List.of(
+                "spring.docker.compose.enabled=false",
+                "spring.datasource.url=" + jdbcUrl,
+                "spring.datasource.username=" + username,
+                "spring.datasource.password=" + password));
+        allProperties.addAll(List.of(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(allProperties.toArray(String[]::new))
+                .run();
+
+        BenchmarkDatabase database = new BenchmarkDatabase(embeddedPostgres, context);
+        database.seed();
+        return database;
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    static long randomUserId() {
+        return FIRST_USER_ID + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    /**
+     * Returns the id of a random note owned by the given user.
+     */
+    static long randomNoteId(long userId) {
+        long noteOfUser = ThreadLocalRandom.current().nextInt(NOTES_PER_USER);
+        return FIRST_NOTE_ID + (userId - FIRST_USER_ID) + noteOfUser * USERS;
+    }
+
+    private void seed() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long expectedNotes = (long) USERS * NOTES_PER_USER;
+        Long users = jdbcTemplate.queryForObject("select count(*) from users where id >= ?", Long.class, FIRST_USER_ID);
+        Long notes = jdbcTemplate.queryForObject("select count(*) from notes where id >= ?", Long.class, FIRST_NOTE_ID);
+        if (users == USERS && notes == expectedNotes) {
+            return;
+        }
+
+        log.info("Seeding {} notes across {} users, this takes a while", expectedNotes, USERS);
+        long start = System.nanoTime();
+        jdbcTemplate.update("delete from notes where user_id >= ?", FIRST_USER_ID);
+        jdbcTemplate.update("delete from users where id >= ?", FIRST_USER_ID);
+        jdbcTemplate.update("""
+                insert into users(id, email, password, name, role, created_at)
+                select u, 'bench' || u || '@example.com', 'secret', 'Benchmark User ' || u, 'ROLE_USER', CURRENT_TIMESTAMP
+                from generate_series(?::bigint, ?::bigint) u
+                """, FIRST_USER_ID, FIRST_USER_ID + USERS - 1);
+        // Note n belongs to user FIRST_USER_ID + n % USERS, every 10th note is archived, one note per minute
+        jdbcTemplate.update("""
+                insert into notes(id, title, content, user_id, archived, created_at)
+                select ?::bigint + g,
+                       (array['Meeting', 'Project', 'Recipe', 'Travel', 'Idea', 'Book', 'Budget', 'Review'])[1 + g % 8]
+                           || ' notes ' || g,
+                       repeat('Discussed the ' || (array['roadmap', 'release', 'pasta', 'flight', 'prototype',
+                                   'chapter', 'expenses', 'pull request'])[1 + g % 8]
+                               || ' with the team, follow up on topic ' || g % 1000 || '. ', 1 + g % 6),
+                       ?::bigint + g % ?,
+                       g % 10 = 0,
+                       CURRENT_TIMESTAMP - make_interval(mins => g::int)
+                from generate_series(0::bigint, ?::bigint - 1) g
+                """, FIRST_NOTE_ID, FIRST_USER_ID, USERS, expectedNotes);
+        // The inserts bypass NoteService, count the seeded notes into the note stats
+        context.getBean(NoteService.class).recalculateNoteStats();
+        jdbcTemplate.execute("analyze users");
+        jdbcTemplate.execute("analyze notes");
+        log.info("Seeded benchmark dataset in {} s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+}
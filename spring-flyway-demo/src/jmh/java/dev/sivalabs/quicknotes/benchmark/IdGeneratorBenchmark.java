@@ -0,0 +1,65 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import dev.sivalabs.quicknotes.domain.utils.TsidGenerator;
+import io.hypersistence.tsid.TSID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the previous static {@code TSID.Factory.getTsid()} path with the striped {@link TsidGenerator}.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private TsidGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new TsidGenerator(1, 10, 4);
+    }
+
+    @Benchmark
+    public long tsidFactory() {
+        return TSID.Factory.getTsid().toLong();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long tsidFactoryContended() {
+        return TSID.Factory.getTsid().toLong();
+    }
+
+    @Benchmark
+    public long stripedGenerator() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long stripedGeneratorContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public long[] stripedGeneratorBatchOf100() {
+        return generator.nextIds(100);
+    }
+}
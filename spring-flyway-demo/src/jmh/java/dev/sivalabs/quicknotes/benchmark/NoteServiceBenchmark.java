@@ -0,0 +1,92 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import static dev.sivalabs.quicknotes.benchmark.BenchmarkDatabase.NOTES_PER_USER;
+import static dev.sivalabs.quicknotes.benchmark.BenchmarkDatabase.randomNoteId;
+import static dev.sivalabs.quicknotes.benchmark.BenchmarkDatabase.randomUserId;
+
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.CursorResult;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.model.SlicedResult;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NoteService read paths for random users of the {@link BenchmarkDatabase} dataset.
+ * Sample time mode, so the JSON result carries latency percentiles.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoteServiceBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    private BenchmarkDatabase database;
+    private NoteService noteService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        noteService = database.getBean(NoteService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public PagedResult<Note> findUserNotes() {
+        return noteService.findUserNotes(randomUserId(), randomPage());
+    }
+
+    @Benchmark
+    public PagedResult<Note> findUserArchivedNotes() {
+        return noteService.findUserArchivedNotes(randomUserId(), 1);
+    }
+
+    @Benchmark
+    public PagedResult<NoteSummary> findUserNoteSummaries() {
+        return noteService.findUserNoteSummaries(randomUserId(), randomPage());
+    }
+
+    @Benchmark
+    public SlicedResult<Note> findUserNotesSlice() {
+        return noteService.findUserNotesSlice(randomUserId(), randomPage());
+    }
+
+    @Benchmark
+    public CursorResult<Note> findUserNotesByCursor() {
+        return noteService.findUserNotesByCursor(randomUserId(), null);
+    }
+
+    @Benchmark
+    public Note getNoteById() {
+        long userId = randomUserId();
+        return noteService.getNoteById(randomNoteId(userId), userId);
+    }
+
+    private static int randomPage() {
+        // Active notes are 90% of each user's notes
+        int pages = Math.max(1, NOTES_PER_USER * 9 / 10 / PAGE_SIZE);
+        return 1 + ThreadLocalRandom.current().nextInt(pages);
+    }
+}
@@ -0,0 +1,124 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import static org.testcontainers.utility.DockerImageName.parse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+/**
+ * Time from launching the process until Spring Boot logs "Started Application", for the plain jar,
+ * the AOT processed jar, the AOT processed jar with the JVM AOT cache and, when given, a native image.
+ * Every variant is started {@code startup.runs} times in a fresh process against the same PostgreSQL,
+ * after one unmeasured start has applied the migrations, so each measured start only validates them.
+ * <p>
+ * Needs the output of {@code mvn -Pfast-start package} (see README) in {@code startup.directory}.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.sivalabs.quicknotes.benchmark.StartupTimeTest \
+ *     -Dstartup.runs=10 -Dstartup.native-image=target/spring-flyway-demo
+ * </pre>
+ */
+public class StartupTimeTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 10);
+    private static final Path DIRECTORY = Path.of(System.getProperty("startup.directory", "target/fast-start"));
+    private static final String NATIVE_IMAGE = System.getProperty("startup.native-image");
+    private static final String STARTED_MARKER = "Started Application in";
+
+    public static void main(String[] args) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String jar = findApplicationJar().getFileName().toString();
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("jar", java, "-jar", jar));
+        variants.add(new Variant("aot", java, "-Dspring.aot.enabled=true", "-jar", jar));
+        if (Files.exists(DIRECTORY.resolve("application.aot"))) {
+            variants.add(new Variant(
+                    "aot+cache", java, "-XX:AOTCache=application.aot", "-Dspring.aot.enabled=true", "-jar", jar));
+        }
+        if (NATIVE_IMAGE != null) {
+            variants.add(new Variant("native", Path.of(NATIVE_IMAGE).toAbsolutePath().toString()));
+        }
+
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer(parse("postgres:18-alpine"))) {
+            postgres.start();
+            List<String> applicationArgs = List.of(
+                    "--server.port=0",
+                    "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                    "--spring.datasource.username=" + postgres.getUsername(),
+                    "--spring.datasource.password=" + postgres.getPassword());
+            start(variants.getFirst(), applicationArgs);
+
+            System.out.printf("%n%d starts per variant from %s%n", RUNS, DIRECTORY);
+            System.out.printf("%-10s %10s %10s %10s%n", "variant", "min ms", "median ms", "max ms");
+            for (Variant variant : variants) {
+                long[] millis = new long[RUNS];
+                for (int run = 0; run < RUNS; run++) {
+                    millis[run] = start(variant, applicationArgs);
+                }
+                Arrays.sort(millis);
+                System.out.printf(
+                        "%-10s %10d %10d %10d%n", variant.name(), millis[0], millis[RUNS / 2], millis[RUNS - 1]);
+            }
+        }
+    }
+
+    private static Path findApplicationJar() throws IOException {
+        try (Stream<Path> files = Files.list(DIRECTORY)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No application jar in " + DIRECTORY + ", build it with mvn -Pfast-start package"));
+        }
+    }
+
+    /**
+     * Starts the variant, waits for the started log line and stops the process again.
+     */
+    private static long start(Variant variant, List<String> applicationArgs) throws Exception {
+        List<String> command = new ArrayList<>(variant.command());
+        command.addAll(applicationArgs);
+        Process process = new ProcessBuilder(command)
+                .directory(DIRECTORY.toFile())
+                .redirectErrorStream(true)
+                .start();
+        long start = System.nanoTime();
+        Deque<String> lastLines = new ArrayDeque<>();
+        try (BufferedReader output =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.contains(STARTED_MARKER)) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+                lastLines.addLast(line);
+                if (lastLines.size() > 20) {
+                    lastLines.removeFirst();
+                }
+            }
+            throw new IllegalStateException(
+                    variant.name() + " exited before it started:\n" + String.join("\n", lastLines));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private record Variant(String name, List<String> command) {
+        Variant(String name, String... command) {
+            this(name, List.of(command));
+        }
+    }
+}
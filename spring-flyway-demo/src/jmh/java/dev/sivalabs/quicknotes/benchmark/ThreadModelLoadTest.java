@@ -0,0 +1,133 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import static org.testcontainers.utility.DockerImageName.parse;
+
+import dev.sivalabs.quicknotes.Application;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+/**
+ * Bursty load against the NoteService request path, once with the default platform-thread configuration
+ * (a 200 thread pool, like Tomcat's default) and once with the virtual-threads profile (a virtual thread per request).
+ * Every request waits on a simulated downstream call and then reads and occasionally writes notes.
+ * Latency is measured from submission, so it includes time spent waiting for a request thread.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.sivalabs.quicknotes.benchmark.ThreadModelLoadTest \
+ *     -Dload.requests=20000 -Dload.burst=2000 -Dload.downstreamLatencyMs=20
+ * </pre>
+ */
+public class ThreadModelLoadTest {
+
+    private static final int PLATFORM_REQUEST_THREADS = 200;
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+    private static final int BURST = Integer.getInteger("load.burst", 2_000);
+    private static final long BURST_INTERVAL_MS = Long.getLong("load.burstIntervalMs", 100);
+    private static final long DOWNSTREAM_LATENCY_MS = Long.getLong("load.downstreamLatencyMs", 20);
+
+    public static void main(String[] args) throws Exception {
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer(parse("postgres:18-alpine"))) {
+            postgres.start();
+            List<Result> results = new ArrayList<>();
+            results.add(run("platform", null, postgres, Executors.newFixedThreadPool(PLATFORM_REQUEST_THREADS)));
+            results.add(run("virtual", "virtual-threads", postgres, Executors.newVirtualThreadPerTaskExecutor()));
+
+            System.out.printf(
+                    "%n%d requests, bursts of %d every %d ms, %d ms downstream latency%n",
+                    REQUESTS, BURST, BURST_INTERVAL_MS, DOWNSTREAM_LATENCY_MS);
+            System.out.printf("%-10s %12s %10s %10s %10s%n", "threads", "req/s", "p50 ms", "p99 ms", "max ms");
+            for (Result result : results) {
+                System.out.printf(
+                        "%-10s %12.1f %10.1f %10.1f %10.1f%n",
+                        result.mode(), result.throughput(), result.p50(), result.p99(), result.max());
+            }
+        }
+    }
+
+    private static Result run(String mode, String profile, PostgreSQLContainer postgres, ExecutorService executor)
+            throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.docker.compose.enabled=false",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword());
+        if (profile != null) {
+            builder.profiles(profile);
+        }
+        try (ConfigurableApplicationContext context = builder.run();
+                executor) {
+            NoteService noteService = context.getBean(NoteService.class);
+            // Warm up JIT, connection pool and caches with a short burst before measuring
+            execute(noteService, executor, Math.min(BURST, REQUESTS));
+            return execute(noteService, executor, REQUESTS).withMode(mode);
+        }
+    }
+
+    private static Result execute(NoteService noteService, ExecutorService executor, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        List<Future<?>> futures = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            if (i > 0 && i % BURST == 0) {
+                Thread.sleep(BURST_INTERVAL_MS);
+            }
+            int request = i;
+            long submittedAt = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                handleRequest(noteService, request);
+                latencies[request] = System.nanoTime() - submittedAt;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(
+                null,
+                requests / (elapsed / 1_000_000_000.0),
+                millis(latencies[(int) (requests * 0.50)]),
+                millis(latencies[Math.min(requests - 1, (int) (requests * 0.99))]),
+                millis(latencies[requests - 1]));
+    }
+
+    private static void handleRequest(NoteService noteService, int request) {
+        try {
+            // Stands in for a call to another service made while handling the request
+            TimeUnit.MILLISECONDS.sleep(DOWNSTREAM_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        Long userId = request % 2 == 0 ? 1L : 2L;
+        noteService.findUserNotes(userId, 1 + request % 3);
+        if (request % 20 == 0) {
+            noteService.createNote(new CreateNoteCmd(userId, "Load test note " + request, "Created by the load test"));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Result(String mode, double throughput, double p50, double p99, double max) {
+        Result withMode(String mode) {
+            return new Result(mode, throughput, p50, p99, max);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package db.partitioning;
+
+import dev.sivalabs.quicknotes.migration.NotesPartitioning;
+import dev.sivalabs.quicknotes.migration.OnlineJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Optional, applied with the "partitioned" profile, see {@link NotesPartitioning}.
+ */
+public class V7__Partition_notes extends OnlineJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        NotesPartitioning.migrate(context.getConnection());
+    }
+}
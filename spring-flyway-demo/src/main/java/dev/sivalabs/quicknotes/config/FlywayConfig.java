@@ -1,46 +1,97 @@
 package dev.sivalabs.quicknotes.config;
 
+import db.partitioning.V7__Partition_notes;
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.model.MigrationMode;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
 
 @Configuration
+@ImportRuntimeHints(FlywayConfig.MigrationResourcesHints.class)
 class FlywayConfig {
     private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
 
     @Bean
-    public FlywayMigrationStrategy flywayMigrationStrategy(Environment env) {
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            Environment env, ApplicationProperties properties, MigrationTimings timings) {
         boolean isLocalProfile = env.acceptsProfiles(Profiles.of("local"));
+        MigrationMode mode = properties.migrations().mode();
 
         Map<String, String> overrides = new HashMap<>();
         if (isLocalProfile) {
             overrides.put("flyway.cleanDisabled", "false");
         }
         return flywayOld -> {
-            final Flyway flyway = Flyway.configure()
-                    .configuration(flywayOld.getConfiguration())
-                    .configuration(overrides)
-                    .load();
-            try {
-                flyway.migrate();
-            } catch (Exception e) {
-                log.error("Flyway migration failed", e);
-                if (isLocalProfile) {
-                    log.warn(
-                            "Application is running in 'local' profile. Cleaning up database and applying migrations again");
-                    flyway.clean();
-                    flyway.migrate();
-                } else {
-                    throw e;
-                }
+            var configuration = flywayOld.getConfiguration();
+            SchemaFingerprint fingerprint = timings.time("fingerprint", () -> fingerprint(configuration));
+            if (mode == MigrationMode.SKIP_IF_CURRENT
+                    && timings.time("fingerprint", () -> fingerprint.isCurrent(configuration.getDataSource()))) {
+                log.info("Schema fingerprint {} is current, skipping Flyway migrations", fingerprint.value());
+                return;
             }
+            final Flyway flyway = overrides.isEmpty()
+                    ? flywayOld
+                    : Flyway.configure()
+                            .configuration(configuration)
+                            .configuration(overrides)
+                            .load();
+            timings.time("migrate", () -> migrate(flyway, isLocalProfile));
+            timings.time("record", () -> fingerprint.record(configuration.getDataSource()));
         };
     }
+
+    private static void migrate(Flyway flyway, boolean isLocalProfile) {
+        try {
+            flyway.migrate();
+        } catch (Exception e) {
+            log.error("Flyway migration failed", e);
+            if (isLocalProfile) {
+                log.warn(
+                        "Application is running in 'local' profile. Cleaning up database and applying migrations again");
+                flyway.clean();
+                flyway.migrate();
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private static SchemaFingerprint fingerprint(org.flywaydb.core.api.configuration.Configuration configuration) {
+        List<String> locations = Arrays.stream(configuration.getLocations())
+                .map(Location::getDescriptor)
+                .toList();
+        List<String> patterns = locations.stream()
+                .map(location -> location.replaceFirst("^filesystem:", "file:") + "/**/*")
+                .toList();
+        return SchemaFingerprint.compute(
+                "flyway", patterns, String.join(",", locations), String.join(",", configuration.getSchemas()));
+    }
+
+    /**
+     * Flyway finds its scripts by scanning the classpath, which a native image only serves for registered
+     * resources. Spring Boot registers db/migration, the partitioned profile also reads db/partitioning,
+     * whose Java migration is instantiated reflectively.
+     */
+    static class MigrationResourcesHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("db/migration/*.sql").registerPattern("db/partitioning/*");
+            hints.reflection().registerType(V7__Partition_notes.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.utils.TsidGenerator;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The application's only TSID source. Entities get their ids from it through {@code TsidListener},
+ * bulk imports reserve blocks of ids from it directly.
+ */
+@Configuration
+class IdGeneratorConfig {
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean
+    TsidGenerator tsidGenerator(ApplicationProperties properties) {
+        ApplicationProperties.IdGeneratorSettings settings = properties.idGenerator();
+        int nodeId;
+        if (settings.nodeId() != null) {
+            nodeId = settings.nodeId();
+        } else {
+            nodeId = ThreadLocalRandom.current().nextInt(1 << settings.nodeBits());
+            log.warn(
+                    "No app.id-generator.node-id configured, using random node id {}. "
+                            + "Configure a unique node id per instance to rule out id collisions",
+                    nodeId);
+        }
+        return new TsidGenerator(nodeId, settings.nodeBits(), settings.stripes());
+    }
+}
@@ -0,0 +1,64 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndex;
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndexStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes {@link NoteSearchIndex#stats()}: loaded users, notes, terms and postings, estimated and maximum size,
+ * and the hits, misses and evictions of the in-memory search tier.
+ */
+@Component
+class NoteSearchIndexMetrics implements MeterBinder {
+    static final String INDEX_METRIC = "quicknotes.search.index";
+    static final String SIZE_METRIC = "quicknotes.search.index.size";
+    static final String REQUESTS_METRIC = "quicknotes.search.index.requests";
+    static final String EVICTIONS_METRIC = "quicknotes.search.index.evictions";
+
+    private final NoteSearchIndex noteSearchIndex;
+
+    NoteSearchIndexMetrics(NoteSearchIndex noteSearchIndex) {
+        this.noteSearchIndex = noteSearchIndex;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        entries(registry, "users", NoteSearchIndexStats::users);
+        entries(registry, "notes", NoteSearchIndexStats::notes);
+        entries(registry, "terms", NoteSearchIndexStats::terms);
+        entries(registry, "postings", NoteSearchIndexStats::postings);
+        Gauge.builder(SIZE_METRIC, noteSearchIndex, index -> index.stats().estimatedBytes())
+                .description("Estimated heap used by the in-memory search indexes")
+                .tag("limit", "estimated")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(SIZE_METRIC, noteSearchIndex, index -> index.stats().maxBytes())
+                .description("Estimated heap used by the in-memory search indexes")
+                .tag("limit", "max")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC, noteSearchIndex, index -> index.stats().hits())
+                .description("Searches answered by a loaded index (hit) or sent to SQL (miss)")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC, noteSearchIndex, index -> index.stats().misses())
+                .description("Searches answered by a loaded index (hit) or sent to SQL (miss)")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS_METRIC, noteSearchIndex, index -> index.stats().evictions())
+                .description("User indexes evicted to stay within app.search.in-memory.max-size")
+                .register(registry);
+    }
+
+    private void entries(MeterRegistry registry, String kind, ToDoubleFunction<NoteSearchIndexStats> value) {
+        Gauge.builder(INDEX_METRIC, noteSearchIndex, index -> value.applyAsDouble(index.stats()))
+                .description("Contents of the loaded in-memory search indexes")
+                .tag("kind", kind)
+                .register(registry);
+    }
+}
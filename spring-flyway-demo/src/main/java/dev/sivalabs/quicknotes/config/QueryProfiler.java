@@ -0,0 +1,216 @@
+package dev.sivalabs.quicknotes.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records execution time, row count and calling repository method of every JDBC statement.
+ * Statements above the slow query threshold are logged with their details, and a select that runs
+ * again and again within one transaction is reported as a possible N+1.
+ * <p>
+ * Everything comes from the query execution listener, the ResultSets are not proxied: a statement is
+ * recorded when it returns, and the row count is the update count of inserts, updates and deletes.
+ * Selects are recorded without a row count.
+ */
+class QueryProfiler implements QueryExecutionListener, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(QueryProfiler.class);
+
+    static final String QUERY_METRIC = "quicknotes.db.query";
+    static final String ROWS_METRIC = "quicknotes.db.query.rows";
+    static final String N_PLUS_ONE_METRIC = "quicknotes.db.n-plus-one";
+    static final String NO_REPOSITORY = "none";
+
+    private static final ThreadLocal<Deque<String>> repositoryMethods = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final long slowQueryThresholdMillis;
+    private final int nPlusOneThreshold;
+    private volatile MeterRegistry meterRegistry;
+
+    QueryProfiler(Duration slowQueryThreshold, int nPlusOneThreshold) {
+        this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+    }
+
+    static void enterRepositoryMethod(String method) {
+        repositoryMethods.get().push(method);
+        TransactionStats stats = TransactionStats.current();
+        if (stats != null) {
+            stats.lastRepositoryMethod = method;
+        }
+    }
+
+    static void exitRepositoryMethod() {
+        Deque<String> methods = repositoryMethods.get();
+        methods.pop();
+        if (methods.isEmpty()) {
+            repositoryMethods.remove();
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {}
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        Execution execution =
+                new Execution(sql, currentRepositoryMethod(), execInfo.getElapsedTime(), execInfo.isBatch());
+        Object result = execInfo.getResult();
+        if (result instanceof Integer updateCount) {
+            execution.rows = updateCount;
+        } else if (result instanceof int[] updateCounts) {
+            execution.rows = 0;
+            for (int count : updateCounts) {
+                execution.rows += Math.max(count, 0);
+            }
+        }
+        record(execution);
+    }
+
+    private void record(Execution execution) {
+        String type = statementType(execution.sql);
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            Timer.builder(QUERY_METRIC)
+                    .tag("repository", execution.repositoryMethod)
+                    .tag("type", type)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry)
+                    .record(execution.elapsedMillis, TimeUnit.MILLISECONDS);
+            if (execution.rows >= 0) {
+                DistributionSummary.builder(ROWS_METRIC)
+                        .baseUnit("rows")
+                        .tag("repository", execution.repositoryMethod)
+                        .tag("type", type)
+                        .register(registry)
+                        .record(execution.rows);
+            }
+        }
+        if (execution.elapsedMillis >= slowQueryThresholdMillis) {
+            log.warn(
+                    "Slow query: {} ms, {}batch={}, from {}: {}",
+                    execution.elapsedMillis,
+                    execution.rows >= 0 ? execution.rows + " rows, " : "",
+                    execution.batch,
+                    execution.repositoryMethod,
+                    execution.sql);
+        }
+        if (type.equals("select") && !execution.batch) {
+            detectNPlusOne(execution);
+        }
+    }
+
+    private void detectNPlusOne(Execution execution) {
+        TransactionStats stats = TransactionStats.current();
+        if (stats == null) {
+            return;
+        }
+        int count = stats.selectCounts.merge(execution.sql, 1, Integer::sum);
+        if (count != nPlusOneThreshold) {
+            return;
+        }
+        // Lazy loads run after the repository call returned, so blame the last repository method of the transaction
+        String repositoryMethod =
+                execution.repositoryMethod.equals(NO_REPOSITORY) && stats.lastRepositoryMethod != null
+                        ? stats.lastRepositoryMethod
+                        : execution.repositoryMethod;
+        log.warn(
+                "Possible N+1: the same select ran {} times in one transaction, around {}: {}",
+                count,
+                repositoryMethod,
+                execution.sql);
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            Counter.builder(N_PLUS_ONE_METRIC)
+                    .tag("repository", repositoryMethod)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    private static String currentRepositoryMethod() {
+        String method = repositoryMethods.get().peek();
+        return method != null ? method : NO_REPOSITORY;
+    }
+
+    private static String statementType(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return switch (trimmed.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> "select";
+            case "insert" -> "insert";
+            case "update" -> "update";
+            case "delete" -> "delete";
+            default -> "other";
+        };
+    }
+
+    private static final class Execution {
+        final String sql;
+        final String repositoryMethod;
+        final long elapsedMillis;
+        final boolean batch;
+        // Unknown for selects
+        long rows = -1;
+
+        Execution(String sql, String repositoryMethod, long elapsedMillis, boolean batch) {
+            this.sql = sql;
+            this.repositoryMethod = repositoryMethod;
+            this.elapsedMillis = elapsedMillis;
+            this.batch = batch;
+        }
+    }
+
+    private static final class TransactionStats implements TransactionSynchronization {
+        final Map<String, Integer> selectCounts = new HashMap<>();
+        String lastRepositoryMethod;
+
+        static TransactionStats current() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return null;
+            }
+            TransactionStats stats =
+                    (TransactionStats) TransactionSynchronizationManager.getResource(TransactionStats.class);
+            if (stats == null) {
+                stats = new TransactionStats();
+                TransactionSynchronizationManager.bindResource(TransactionStats.class, stats);
+                TransactionSynchronizationManager.registerSynchronization(stats);
+            }
+            return stats;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionStats.class);
+        }
+    }
+}
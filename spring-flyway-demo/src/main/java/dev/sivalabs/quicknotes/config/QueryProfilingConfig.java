@@ -0,0 +1,49 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@ConditionalOnProperty(name = "app.query-profiling.enabled", havingValue = "true")
+class QueryProfilingConfig {
+
+    // Static, and bound straight from the Environment, because the DataSource post processor needs it
+    // before regular beans such as ApplicationProperties exist. It becomes a MeterBinder once the registry is up.
+    @Bean
+    static QueryProfiler queryProfiler(Environment environment) {
+        ApplicationProperties.QueryProfiling settings = Binder.get(environment)
+                .bindOrCreate("app.query-profiling", ApplicationProperties.QueryProfiling.class);
+        return new QueryProfiler(settings.slowQueryThreshold(), settings.nPlusOneThreshold());
+    }
+
+    @Bean
+    static BeanPostProcessor queryProfilingDataSourcePostProcessor(ObjectProvider<QueryProfiler> queryProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    QueryProfiler profiler = queryProfiler.getObject();
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(profiler)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    RepositoryMethodAspect repositoryMethodAspect() {
+        return new RepositoryMethodAspect();
+    }
+}
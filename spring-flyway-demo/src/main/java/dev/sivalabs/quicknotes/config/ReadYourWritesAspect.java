@@ -0,0 +1,56 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.model.UpdateNoteCmd;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.CodeSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Makes the user a NoteService or UserService call acts for, a {@code userId} parameter or the user of a command,
+ * the current user of {@link ReadReplicaRouter} for the duration of the call.
+ * <p>
+ * Runs outside the transaction, inserts of new notes are only flushed, and their connection taken, on commit.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class ReadYourWritesAspect {
+
+    @Around("execution(public * dev.sivalabs.quicknotes.domain.service.NoteService.*(..))"
+            + " || execution(public * dev.sivalabs.quicknotes.domain.service.UserService.*(..))")
+    Object withCurrentUser(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long userId = userIdOf(joinPoint);
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+        Long previous = ReadReplicaRouter.setCurrentUser(userId);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadReplicaRouter.setCurrentUser(previous);
+        }
+    }
+
+    private static Long userIdOf(ProceedingJoinPoint joinPoint) {
+        String[] names = ((CodeSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case Long userId when "userId".equals(names[i]) -> {
+                    return userId;
+                }
+                case CreateNoteCmd cmd -> {
+                    return cmd.userId();
+                }
+                case UpdateNoteCmd cmd -> {
+                    return cmd.userId();
+                }
+                case null, default -> {}
+            }
+        }
+        return null;
+    }
+}
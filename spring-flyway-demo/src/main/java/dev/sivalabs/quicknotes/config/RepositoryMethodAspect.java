@@ -0,0 +1,34 @@
+package dev.sivalabs.quicknotes.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Tells the {@link QueryProfiler} which repository method the statements on the current thread belong to.
+ */
+@Aspect
+class RepositoryMethodAspect {
+
+    @Around("execution(* dev.sivalabs.quicknotes.domain.repo.*Repository+.*(..))")
+    Object track(ProceedingJoinPoint joinPoint) throws Throwable {
+        QueryProfiler.enterRepositoryMethod(repositoryName(joinPoint.getThis()) + "."
+                + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryProfiler.exitRepositoryMethod();
+        }
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (Repository.class.isAssignableFrom(type) && type != Repository.class) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,93 @@
+package dev.sivalabs.quicknotes.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * SHA-256 over the migration scripts of this build and the settings that select them. It is stored in
+ * schema_fingerprint after every successful migration, so an instance whose fingerprint matches the stored one
+ * has nothing pending and can skip the migrator with a single primary key read, without locking the schema history.
+ */
+final class SchemaFingerprint {
+    private static final Logger log = LoggerFactory.getLogger(SchemaFingerprint.class);
+
+    private final String migrator;
+    private final String value;
+
+    private SchemaFingerprint(String migrator, String value) {
+        this.migrator = migrator;
+        this.value = value;
+    }
+
+    static SchemaFingerprint compute(String migrator, List<String> locationPatterns, String... settings) {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        List<Resource> scripts = new ArrayList<>();
+        try {
+            for (String pattern : locationPatterns) {
+                for (Resource resource : resolver.getResources(pattern)) {
+                    if (resource.isReadable()) {
+                        scripts.add(resource);
+                    }
+                }
+            }
+            // File names only, the location of the jar differs between hosts
+            scripts.sort(Comparator.comparing(Resource::getFilename, Comparator.nullsFirst(Comparator.naturalOrder())));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource script : scripts) {
+                digest.update(Objects.toString(script.getFilename()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(script.getContentAsByteArray());
+                digest.update((byte) 0);
+            }
+            for (String setting : settings) {
+                digest.update(Objects.toString(setting).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return new SchemaFingerprint(migrator, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the migration scripts", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String value() {
+        return value;
+    }
+
+    boolean isCurrent(DataSource dataSource) {
+        try {
+            List<String> stored = new JdbcTemplate(dataSource)
+                    .queryForList(
+                            "select fingerprint from schema_fingerprint where migrator = ?", String.class, migrator);
+            return stored.contains(value);
+        } catch (DataAccessException e) {
+            // schema_fingerprint is created by a migration, a new database has not got it yet
+            log.debug("Could not read the schema fingerprint: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    void record(DataSource dataSource) {
+        new JdbcTemplate(dataSource).update("""
+                insert into schema_fingerprint(migrator, fingerprint, updated_at) values (?, ?, CURRENT_TIMESTAMP)
+                on conflict (migrator) do update set fingerprint = excluded.fingerprint, updated_at = excluded.updated_at
+                """, migrator, value);
+    }
+}
@@ -0,0 +1,62 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.domain.exception.BadRequestException;
+import dev.sivalabs.quicknotes.domain.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public NoteService and UserService method as {@code quicknotes.service}, tagged by service,
+ * operation and outcome. The timer count doubles as the call counter, the histogram buckets give percentiles.
+ */
+@Aspect
+@Component
+class ServiceMetricsAspect {
+    static final String METRIC_NAME = "quicknotes.service";
+
+    private final MeterRegistry meterRegistry;
+
+    ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * dev.sivalabs.quicknotes.domain.service.NoteService.*(..))"
+            + " || execution(public * dev.sivalabs.quicknotes.domain.service.UserService.*(..))")
+    Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcomeOf(result);
+            return result;
+        } catch (ResourceNotFoundException e) {
+            outcome = "not-found";
+            throw e;
+        } catch (BadRequestException e) {
+            outcome = "bad-request";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcomeOf(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? "found" : "not-found";
+        }
+        return "success";
+    }
+}
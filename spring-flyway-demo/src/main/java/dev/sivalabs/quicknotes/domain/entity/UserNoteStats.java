@@ -0,0 +1,84 @@
+package dev.sivalabs.quicknotes.domain.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Saved once, empty, when the user is created. From then on maintained through UserNoteStatsRepository's
+ * update statements.
+ */
+@Entity
+@Table(name = "user_note_stats")
+public class UserNoteStats implements Persistable<Long> {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "active_count", nullable = false)
+    private long activeCount;
+
+    @Column(name = "archived_count", nullable = false)
+    private long archivedCount;
+
+    @Column(name = "content_bytes", nullable = false)
+    private long contentBytes;
+
+    @Column(name = "last_modified_at")
+    private Instant lastModifiedAt;
+
+    // Incremented by every update, not an optimistic lock: the counters are only changed by update statements
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // The id is the user's, so Spring Data can't tell a new row from an existing one by it
+    @Transient
+    private boolean isNew;
+
+    protected UserNoteStats() {}
+
+    public UserNoteStats(Long userId) {
+        this.userId = userId;
+        this.isNew = true;
+    }
+
+    @Override
+    public Long getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    void markPersisted() {
+        isNew = false;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getActiveCount() {
+        return activeCount;
+    }
+
+    public long getArchivedCount() {
+        return archivedCount;
+    }
+
+    public long getContentBytes() {
+        return contentBytes;
+    }
+
+    public Instant getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Duration;
+
+/**
+ * @param scanned   notes looked at
+ * @param rewritten notes whose content was recompressed
+ */
+public record CompressionBackfillResult(long scanned, long rewritten, Duration duration) {}
@@ -0,0 +1,12 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorResult<T>(List<T> data, String nextCursor, boolean hasNext) {
+
+    public <R> CursorResult<R> map(Function<T, R> mapper) {
+        List<R> mappedData = data.stream().map(mapper).toList();
+        return new CursorResult<>(mappedData, nextCursor, hasNext);
+    }
+}
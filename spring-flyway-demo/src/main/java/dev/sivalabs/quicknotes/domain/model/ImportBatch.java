@@ -0,0 +1,13 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Duration;
+
+/**
+ * Progress of a note import after one batch has been committed.
+ *
+ * @param batchNumber  1-based number of the batch
+ * @param size         notes inserted by this batch
+ * @param totalImported notes inserted so far, including this batch
+ * @param duration     time spent inserting and committing this batch
+ */
+public record ImportBatch(int batchNumber, int size, long totalImported, Duration duration) {}
@@ -0,0 +1,6 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Duration;
+import java.util.List;
+
+public record ImportResult(long totalImported, Duration duration, List<ImportBatch> batches) {}
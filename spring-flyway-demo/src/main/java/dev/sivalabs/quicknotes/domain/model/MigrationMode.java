@@ -0,0 +1,10 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+public enum MigrationMode {
+    /** Run the migrator on every start. */
+    ALWAYS,
+    /** Skip the migrator when the stored schema fingerprint matches the migrations of this build. */
+    SKIP_IF_CURRENT,
+    /** Run the migrator and exit, for a single pre-deploy job. */
+    MIGRATE_ONLY
+}
@@ -0,0 +1,9 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import dev.sivalabs.quicknotes.domain.entity.Note;
+
+/**
+ * A ranked full-text search result. The snippet is HTML escaped note content with the matched terms
+ * wrapped in {@code <mark>} tags, safe to render as HTML.
+ */
+public record NoteSearchHit(Note note, double rank, String snippet) {}
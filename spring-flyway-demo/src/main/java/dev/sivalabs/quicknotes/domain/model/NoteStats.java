@@ -0,0 +1,22 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Instant;
+
+/**
+ * Note counters of a user, read from the user_note_stats row that every note write keeps up to date.
+ *
+ * @param contentBytes   uncompressed UTF-8 size of the contents of all notes, for quotas
+ * @param lastModifiedAt time of the last note write, null when the user never wrote a note
+ */
+public record NoteStats(long activeCount, long archivedCount, long contentBytes, Instant lastModifiedAt) {
+
+    public static final NoteStats EMPTY = new NoteStats(0, 0, 0, null);
+
+    public long totalCount() {
+        return activeCount + archivedCount;
+    }
+
+    public long count(boolean archived) {
+        return archived ? archivedCount : activeCount;
+    }
+}
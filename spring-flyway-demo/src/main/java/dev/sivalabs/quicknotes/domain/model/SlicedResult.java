@@ -0,0 +1,24 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Slice;
+
+public record SlicedResult<T>(
+        List<T> data, int pageNumber, boolean isFirst, boolean isLast, boolean hasNext, boolean hasPrevious) {
+
+    public SlicedResult(Slice<T> slice) {
+        this(
+                slice.getContent(),
+                slice.getNumber() + 1,
+                slice.isFirst(),
+                slice.isLast(),
+                slice.hasNext(),
+                slice.hasPrevious());
+    }
+
+    public <R> SlicedResult<R> map(Function<T, R> mapper) {
+        List<R> mappedData = data.stream().map(mapper).toList();
+        return new SlicedResult<>(mappedData, pageNumber, isFirst, isLast, hasNext, hasPrevious);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+/**
+ * What a single note contributes to the user's note stats.
+ */
+public interface NoteFootprint {
+    Boolean getArchived();
+
+    Integer getContentBytes();
+}
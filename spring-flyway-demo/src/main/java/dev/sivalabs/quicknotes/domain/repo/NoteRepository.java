@@ -1,35 +1,366 @@
 package dev.sivalabs.quicknotes.domain.repo;
 
 import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.NoteExport;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
+    // The lookups and writes of a single note take the archived flag as well: on a partitioned notes table it
+    // limits them to one partition, the primary key (id, archived, created_at) alone can't. Callers look in the
+    // partition the note most likely is in first, see NoteService.
+
+    @Query("""
+        select n from Note n
+        where n.id = :id and n.user.id = :userId and n.archived = :archived
+        """)
+    Optional<Note> findByIdAndUserIdAndArchived(
+            @Param("id") Long id, @Param("userId") Long userId, @Param("archived") boolean archived);
+
+    boolean existsByIdAndUserIdAndArchived(Long id, Long userId, Boolean archived);
+
+    // The owner-scoped writes of a single note are native statements returning the note's footprint from before
+    // the write. Run as queries rather than bulk updates, they leave the notes cache region alone, the caller
+    // evicts the one note. The sub-select locks the row first, so the returned values are the ones overwritten.
+
+    @Query(
+            value = """
+                    UPDATE notes n SET title = :title, content = :content, updated_at = :now
+                    FROM (SELECT id, archived, coalesce(octet_length(content), 0) AS content_bytes
+                        FROM notes WHERE id = :id AND user_id = :userId AND archived = :archived FOR UPDATE) prev
+                    WHERE n.id = prev.id AND n.archived = :archived
+                    RETURNING prev.archived AS archived, prev.content_bytes AS "contentBytes"
+                    """,
+            nativeQuery = true)
+    Optional<NoteFootprint> updateOwnedNote(
+            @Param("id") Long id,
+            @Param("userId") Long userId,
+            @Param("archived") boolean archived,
+            @Param("title") String title,
+            @Param("content") String content,
+            @Param("now") Instant now);
+
+    @Query(
+            value = """
+                    UPDATE notes n SET archived = :archived, updated_at = :now
+                    FROM (SELECT id, archived, coalesce(octet_length(content), 0) AS content_bytes
+                        FROM notes WHERE id = :id AND user_id = :userId AND archived = :wasArchived FOR UPDATE) prev
+                    WHERE n.id = prev.id AND n.archived = :wasArchived
+                    RETURNING prev.archived AS archived, prev.content_bytes AS "contentBytes"
+                    """,
+            nativeQuery = true)
+    Optional<NoteFootprint> updateOwnedNoteArchivedStatus(
+            @Param("id") Long id,
+            @Param("userId") Long userId,
+            @Param("wasArchived") boolean wasArchived,
+            @Param("archived") boolean archived,
+            @Param("now") Instant now);
+
+    @Query(
+            value = """
+                    DELETE FROM notes
+                    WHERE id = :id AND user_id = :userId AND archived = :archived
+                    RETURNING archived, coalesce(octet_length(content), 0) AS "contentBytes"
+                    """,
+            nativeQuery = true)
+    Optional<NoteFootprint> deleteOwnedNote(
+            @Param("id") Long id, @Param("userId") Long userId, @Param("archived") boolean archived);
+
+    // No count query, the total of a page comes from the user's note stats
     @Query("""
         select n from Note n
-        where n.user.id = ?1 and n.archived = :isArchived
+        where n.user.id = :userId and n.archived = :isArchived
         """)
-    Page<Note> findUserNotes(@Param("userId") Long userId, @Param("isArchived") boolean isArchived, Pageable pageable);
+    List<Note> findUserNotes(@Param("userId") Long userId, @Param("isArchived") boolean isArchived, Pageable pageable);
 
+    // Notes selected with "new Note(...)" carry their content, see the Note constructor
     @Query("""
-            SELECT n FROM Note n
-            WHERE n.user.id = :userId
-            AND n.archived = false
-            AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
-                OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
-            ORDER BY n.createdAt DESC
-            """)
-    Page<Note> searchNonArchivedNotes(@Param("userId") Long userId, @Param("query") String query, Pageable pageable);
+        select new dev.sivalabs.quicknotes.domain.entity.Note(
+            n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.user.id = :userId and n.archived = :isArchived
+        """)
+    Slice<Note> findUserNotesSlice(
+            @Param("userId") Long userId, @Param("isArchived") boolean isArchived, Pageable pageable);
+
+    // The archived filter is written as plain comparisons on the partition key, so that a partitioned
+    // notes table can prune the archive partitions when includeArchived is false
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.model.NoteSummary(
+            n.id, n.title, substring(n.content, 1, 200), n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.user.id = :userId and n.archived = :isArchived
+        """)
+    List<NoteSummary> findUserNoteSummaries(
+            @Param("userId") Long userId, @Param("isArchived") boolean isArchived, Pageable pageable);
+
+    @Query(
+            value = """
+                select new dev.sivalabs.quicknotes.domain.model.NoteSummary(
+                    n.id, n.title, substring(n.content, 1, 200), n.archived, n.createdAt, n.updatedAt)
+                from Note n
+                where n.user.id = :userId
+                and (n.archived = false or n.archived = :includeArchived)
+                and (lower(n.title) like lower(concat('%', :query, '%'))
+                    or lower(n.content) like lower(concat('%', :query, '%')))
+                """,
+            countQuery = """
+                select count(n) from Note n
+                where n.user.id = :userId
+                and (n.archived = false or n.archived = :includeArchived)
+                and (lower(n.title) like lower(concat('%', :query, '%'))
+                    or lower(n.content) like lower(concat('%', :query, '%')))
+                """)
+    Page<NoteSummary> searchNoteSummaries(
+            @Param("userId") Long userId,
+            @Param("query") String query,
+            @Param("includeArchived") boolean includeArchived,
+            Pageable pageable);
+
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.model.NoteSummary(
+            n.id, n.title, substring(n.content, 1, 200), n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.id in :ids
+        """)
+    List<NoteSummary> findNoteSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.entity.Note(
+            n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.id in :ids
+        """)
+    List<Note> findNotesByIds(@Param("ids") Collection<Long> ids);
+
+    long countByUserIdAndArchived(Long userId, Boolean archived);
+
+    long countByUserId(Long userId);
+
+    // search_vector is not mapped, the in-memory search index reads its lexemes instead of the note text
+    @Query(
+            value = """
+                    SELECT n.id AS id, n.archived AS archived,
+                        cast(extract(epoch FROM n.created_at) * 1000000 AS bigint) AS "createdAt",
+                        cast(n.search_vector AS text) AS "searchVector"
+                    FROM notes n
+                    WHERE n.user_id = :userId
+                    """,
+            nativeQuery = true)
+    List<NoteVector> findUserNoteVectors(@Param("userId") Long userId);
+
+    @Query(
+            value = """
+                    SELECT n.id AS id, n.archived AS archived,
+                        cast(extract(epoch FROM n.created_at) * 1000000 AS bigint) AS "createdAt",
+                        cast(n.search_vector AS text) AS "searchVector"
+                    FROM notes n
+                    WHERE n.id = :id AND n.user_id = :userId AND n.archived = :archived
+                    """,
+            nativeQuery = true)
+    Optional<NoteVector> findNoteVector(
+            @Param("id") Long id, @Param("userId") Long userId, @Param("archived") boolean archived);
+
+    /**
+     * Streams all notes of the user, newest first. Must be consumed inside a transaction and closed;
+     * PostgreSQL then reads the rows through a cursor, fetch size rows at a time.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.model.NoteExport(
+            n.id, n.title, n.content, n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.user.id = :userId
+        order by n.createdAt desc, n.id desc
+        """)
+    Stream<NoteExport> streamUserNotes(@Param("userId") Long userId);
 
     @Query("""
-            SELECT n FROM Note n
-            WHERE n.user.id = :userId
-            AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
-                OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
-            ORDER BY n.createdAt DESC
-            """)
+        select new dev.sivalabs.quicknotes.domain.entity.Note(
+            n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.user.id = :userId and n.archived = :isArchived
+        order by n.createdAt desc, n.id desc
+        """)
+    List<Note> findUserNotesFirstPage(
+            @Param("userId") Long userId, @Param("isArchived") boolean isArchived, Limit limit);
+
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.entity.Note(
+            n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+        from Note n
+        where n.user.id = :userId and n.archived = :isArchived
+        and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id))
+        order by n.createdAt desc, n.id desc
+        """)
+    List<Note> findUserNotesAfter(
+            @Param("userId") Long userId,
+            @Param("isArchived") boolean isArchived,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    @Query(
+            value = """
+                    SELECT new dev.sivalabs.quicknotes.domain.entity.Note(
+                        n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+                    FROM Note n
+                    WHERE n.user.id = :userId
+                    AND n.archived = false
+                    AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
+                        OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
+                    ORDER BY n.createdAt DESC
+                    """,
+            countQuery = """
+                    SELECT count(n) FROM Note n
+                    WHERE n.user.id = :userId
+                    AND n.archived = false
+                    AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
+                        OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
+                    """)
+    Page<Note> searchNonArchivedNotes(@Param("userId") Long userId, @Param("query") String query, Pageable pageable);
+
+    @Query(
+            value = """
+                    SELECT new dev.sivalabs.quicknotes.domain.entity.Note(
+                        n.id, n.title, n.content, n.user, n.archived, n.createdAt, n.updatedAt)
+                    FROM Note n
+                    WHERE n.user.id = :userId
+                    AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
+                        OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
+                    ORDER BY n.createdAt DESC
+                    """,
+            countQuery = """
+                    SELECT count(n) FROM Note n
+                    WHERE n.user.id = :userId
+                    AND (LOWER(n.title) LIKE LOWER(CONCAT('%', :query, '%'))
+                        OR LOWER(n.content) LIKE LOWER(CONCAT('%', :query, '%')))
+                    """)
     Page<Note> searchAllNotes(@Param("userId") Long userId, @Param("query") String query, Pageable pageable);
+
+    // Ids of the page only, the notes or summaries of the page are then read by id
+    @Query(
+            value = """
+                    SELECT n.id FROM notes n
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND n.search_vector @@ to_tsquery('english', :tsQuery)
+                    ORDER BY ts_rank(n.search_vector, to_tsquery('english', :tsQuery)) DESC,
+                        n.created_at DESC, n.id DESC
+                    """,
+            countQuery = """
+                    SELECT count(*) FROM notes n
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND n.search_vector @@ to_tsquery('english', :tsQuery)
+                    """,
+            nativeQuery = true)
+    Page<Long> fullTextSearchNoteIds(
+            @Param("userId") Long userId,
+            @Param("tsQuery") String tsQuery,
+            @Param("includeArchived") boolean includeArchived,
+            Pageable pageable);
+
+    /**
+     * The snippet is raw note content with the matched terms between U+E000 and U+E001, characters that are
+     * removed from the content first.
+     */
+    @Query(
+            value = """
+                    SELECT n.id AS id,
+                        ts_rank(n.search_vector, q)::float8 AS rank,
+                        ts_headline('english', translate(n.content, chr(57344) || chr(57345), ''), q,
+                            'StartSel=' || chr(57344) || ', StopSel=' || chr(57345)
+                                || ', MaxFragments=2, MaxWords=30, MinWords=10') AS snippet
+                    FROM notes n, to_tsquery('english', :tsQuery) q
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND n.search_vector @@ q
+                    ORDER BY rank DESC, n.created_at DESC, n.id DESC
+                    """,
+            countQuery = """
+                    SELECT count(*) FROM notes n
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND n.search_vector @@ to_tsquery('english', :tsQuery)
+                    """,
+            nativeQuery = true)
+    Page<NoteSearchMatch> fullTextSearchMatches(
+            @Param("userId") Long userId,
+            @Param("tsQuery") String tsQuery,
+            @Param("includeArchived") boolean includeArchived,
+            Pageable pageable);
+
+    @Query(
+            value = """
+                    SELECT n.id FROM notes n
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND (lower(n.title) LIKE lower(:pattern) ESCAPE '\\'
+                        OR lower(n.content) LIKE lower(:pattern) ESCAPE '\\')
+                    ORDER BY n.created_at DESC
+                    """,
+            countQuery = """
+                    SELECT count(*) FROM notes n
+                    WHERE n.user_id = :userId
+                    AND (n.archived = false OR n.archived = :includeArchived)
+                    AND (lower(n.title) LIKE lower(:pattern) ESCAPE '\\'
+                        OR lower(n.content) LIKE lower(:pattern) ESCAPE '\\')
+                    """,
+            nativeQuery = true)
+    Page<Long> trigramSearchNoteIds(
+            @Param("userId") Long userId,
+            @Param("pattern") String pattern,
+            @Param("includeArchived") boolean includeArchived,
+            Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update Note n set n.archived = true, n.updatedAt = :now
+        where n.user.id = :userId and n.archived = false and n.createdAt < :before
+        """)
+    int archiveNotesCreatedBefore(
+            @Param("userId") Long userId, @Param("before") Instant before, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update Note n set n.archived = :archived, n.updatedAt = :now
+        where n.user.id = :userId and n.id in :ids and n.archived <> :archived
+        """)
+    int updateArchivedStatus(
+            @Param("userId") Long userId,
+            @Param("ids") Collection<Long> ids,
+            @Param("archived") boolean archived,
+            @Param("now") Instant now);
+
+    // Run as a query like the single note writes, so the caller evicts the deleted notes from the cache
+    @Query(
+            value = """
+                    WITH deleted AS (
+                        DELETE FROM notes
+                        WHERE user_id = :userId AND archived = true
+                        RETURNING coalesce(octet_length(content), 0) AS content_bytes
+                    )
+                    SELECT count(*) AS count, coalesce(sum(content_bytes), 0) AS "contentBytes" FROM deleted
+                    """,
+            nativeQuery = true)
+    NoteTotals deleteArchivedNotes(@Param("userId") Long userId);
 }
@@ -0,0 +1,10 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+/**
+ * What a set of notes contributes to the user's note stats.
+ */
+public interface NoteTotals {
+    long getCount();
+
+    long getContentBytes();
+}
@@ -0,0 +1,364 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.model.SearchEngine;
+import dev.sivalabs.quicknotes.domain.repo.NoteRepository;
+import dev.sivalabs.quicknotes.domain.repo.NoteVector;
+import dev.sivalabs.quicknotes.domain.repo.UserNoteStatsRepository;
+import dev.sivalabs.quicknotes.domain.repo.VersionedTsQuery;
+import dev.sivalabs.quicknotes.domain.utils.SearchTerms;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Optional in-memory search tier holding one inverted index per recently searched user.
+ * <p>
+ * The index holds the lexemes of the notes' search_vector with their positions and weights, and every search
+ * has PostgreSQL normalize the query with {@code to_tsquery('english', ...)}, so it stems and skips stop words
+ * like the full-text engine, matches the same notes and orders them the same way, by {@code ts_rank} and then
+ * newest first. It therefore only answers when {@code app.search.engine=FULL_TEXT}, the substring matches of
+ * the other engines cannot be answered from lexemes.
+ * <p>
+ * A user's index is built in the background on the first search. It belongs to a version of the user's note
+ * stats, which every note write increments, on any instance. The query is normalized in the same round trip
+ * that reads the current version, and an index of an older version is dropped and rebuilt instead of answering,
+ * so the writes of other instances are never missed. Notes written around NoteService, e.g. with SQL, are only
+ * noticed once {@code NoteService.recalculateNoteStats()} ran. The writes of this instance are applied to the
+ * index after they commit, which keeps it current without a rebuild. Users are evicted in least-recently-used order once
+ * the estimated size exceeds {@code app.search.in-memory.max-size}. Searches that cannot be answered from an
+ * index return {@code null} so that callers fall back to SQL.
+ */
+@Component
+public class NoteSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    // The text form of to_tsquery for prefix terms joined with &, e.g. 'run':* & 'spring':*
+    private static final Pattern PREFIX_LEXEME = Pattern.compile("'((?:[^'\\\\]|''|\\\\.)*)':\\*");
+    private static final String AND = " & ";
+
+    private final NoteRepository noteRepository;
+    private final UserNoteStatsRepository userNoteStatsRepository;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxNotesPerUser;
+
+    // Access-ordered, so iteration starts with the least recently used index
+    private final LinkedHashMap<Long, UserNoteIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, LoadTicket> loading = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    NoteSearchIndex(
+            NoteRepository noteRepository,
+            UserNoteStatsRepository userNoteStatsRepository,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            ApplicationProperties properties) {
+        this.noteRepository = noteRepository;
+        this.userNoteStatsRepository = userNoteStatsRepository;
+        this.taskExecutor = taskExecutor;
+        ApplicationProperties.InMemorySearch config = properties.search().inMemory();
+        SearchEngine engine = properties.search().engine();
+        this.enabled = config.enabled() && engine == SearchEngine.FULL_TEXT;
+        if (config.enabled() && !enabled) {
+            log.warn(
+                    "app.search.in-memory.enabled needs app.search.engine=FULL_TEXT, {} searches always use SQL",
+                    engine);
+        }
+        this.maxBytes = config.maxSize().toBytes();
+        this.maxNotesPerUser = config.maxNotesPerUser();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the ids of the user's notes matching all query terms as prefixes, ordered like the full-text engine,
+     * or {@code null} when the user's index is not loaded or outdated. Both schedule loading the index.
+     * A query without terms matches nothing, like it does in the full-text engine.
+     */
+    public long[] search(Long userId, String query, boolean includeArchived) {
+        if (!enabled) {
+            return null;
+        }
+        UserNoteIndex index;
+        synchronized (this) {
+            index = indexes.get(userId);
+        }
+        if (index == null) {
+            misses.incrementAndGet();
+            warmUpAsync(userId);
+            return null;
+        }
+        String tsQuery = SearchTerms.toPrefixTsQuery(query);
+        if (tsQuery.isEmpty()) {
+            hits.incrementAndGet();
+            return new long[0];
+        }
+        VersionedTsQuery current = userNoteStatsRepository.findVersionedTsQuery(userId, tsQuery).orElse(null);
+        if (current == null || current.getVersion() != index.version()) {
+            // Notes were written by another instance, or around NoteService
+            synchronized (this) {
+                indexes.remove(userId, index);
+            }
+            misses.incrementAndGet();
+            warmUpAsync(userId);
+            return null;
+        }
+        List<String> lexemes = prefixLexemes(current.getTsQuery());
+        if (lexemes == null) {
+            log.debug("Query {} is not a conjunction of prefixes, searching with SQL", current.getTsQuery());
+            return null;
+        }
+        hits.incrementAndGet();
+        return index.search(lexemes, includeArchived);
+    }
+
+    /**
+     * Returns the lexemes of a tsquery made of prefix terms joined with &amp;, none for an empty tsquery
+     * (all terms were stop words), or {@code null} for any other tsquery.
+     */
+    static List<String> prefixLexemes(String tsQuery) {
+        if (tsQuery == null || tsQuery.isEmpty()) {
+            return List.of();
+        }
+        List<String> lexemes = new ArrayList<>();
+        Matcher matcher = PREFIX_LEXEME.matcher(tsQuery);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            lexemes.add(matcher.group(1).replace("''", "'").replaceAll("\\\\(.)", "$1"));
+            end = matcher.end();
+            if (tsQuery.startsWith(AND, end)) {
+                end += AND.length();
+            } else {
+                break;
+            }
+        }
+        return end == tsQuery.length() ? lexemes : null;
+    }
+
+    public void warmUpAsync(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        LoadTicket ticket;
+        synchronized (this) {
+            if (indexes.containsKey(userId) || loading.containsKey(userId)) {
+                return;
+            }
+            ticket = new LoadTicket();
+            loading.put(userId, ticket);
+        }
+        try {
+            taskExecutor.execute(() -> load(userId, ticket));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading.remove(userId);
+            }
+            log.warn("Could not schedule loading search index for user {}", userId, e);
+        }
+    }
+
+    /**
+     * Loads the user's index on the calling thread.
+     */
+    public void warmUp(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        LoadTicket ticket = new LoadTicket();
+        synchronized (this) {
+            loading.put(userId, ticket);
+        }
+        load(userId, ticket);
+    }
+
+    private void load(Long userId, LoadTicket ticket) {
+        try {
+            // Read before the notes: a write committing in between makes the index look older than it is,
+            // which costs a reload, never a missed write
+            Long version = userNoteStatsRepository.findVersion(userId).orElse(null);
+            if (version == null) {
+                log.debug("Not indexing notes of user {}, no note stats to tell when the index is outdated", userId);
+                return;
+            }
+            if (noteRepository.countByUserId(userId) > maxNotesPerUser) {
+                log.debug("Not indexing notes of user {}, too many notes", userId);
+                return;
+            }
+            UserNoteIndex index = new UserNoteIndex(version);
+            for (NoteVector note : noteRepository.findUserNoteVectors(userId)) {
+                index.add(indexedNote(note));
+            }
+            synchronized (this) {
+                // evictAll() was called while loading
+                if (ticket.stale) {
+                    return;
+                }
+                UserNoteIndex current = indexes.get(userId);
+                if (current == null || current.version() < version) {
+                    indexes.put(userId, index);
+                    enforceSizeLimit();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to load search index for user {}", userId, e);
+        } finally {
+            synchronized (this) {
+                loading.remove(userId, ticket);
+            }
+        }
+    }
+
+    /**
+     * Re-indexes a created or updated note. Called in the transaction of the write, with the version of the user's
+     * note stats it produced; the note is read now, when the user's index is loaded, and indexed after commit.
+     */
+    public void onNoteSaved(Long userId, long version, Long noteId, boolean archived) {
+        if (!enabled) {
+            return;
+        }
+        IndexedNote note = isLoaded(userId)
+                ? noteRepository
+                        .findNoteVector(noteId, userId, archived)
+                        .map(NoteSearchIndex::indexedNote)
+                        .orElse(null)
+                : null;
+        afterCommit(userId, version, note == null ? null : index -> index.add(note));
+    }
+
+    public void onNoteDeleted(Long userId, long version, Long noteId) {
+        afterCommit(userId, version, index -> index.remove(noteId));
+    }
+
+    public void onNoteArchived(Long userId, long version, Long noteId, boolean archived) {
+        onNotesArchived(userId, version, List.of(noteId), archived);
+    }
+
+    public void onNotesArchived(Long userId, long version, Collection<Long> noteIds, boolean archived) {
+        afterCommit(userId, version, index -> noteIds.forEach(noteId -> index.setArchived(noteId, archived)));
+    }
+
+    /**
+     * Drops the user's index after commit, for changes that are not tracked note by note.
+     */
+    public void evict(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> {
+            synchronized (this) {
+                indexes.remove(userId);
+            }
+        });
+    }
+
+    public synchronized void evictAll() {
+        indexes.clear();
+        loading.values().forEach(ticket -> ticket.stale = true);
+    }
+
+    public NoteSearchIndexStats stats() {
+        List<UserNoteIndex> snapshot;
+        synchronized (this) {
+            snapshot = List.copyOf(indexes.values());
+        }
+        long notes = 0, terms = 0, postings = 0, bytes = 0;
+        for (UserNoteIndex index : snapshot) {
+            notes += index.noteCount();
+            terms += index.termCount();
+            postings += index.postingCount();
+            bytes += index.estimatedBytes();
+        }
+        return new NoteSearchIndexStats(
+                snapshot.size(),
+                notes,
+                terms,
+                postings,
+                bytes,
+                maxBytes,
+                hits.get(),
+                misses.get(),
+                evictions.get());
+    }
+
+    private synchronized boolean isLoaded(Long userId) {
+        return indexes.containsKey(userId);
+    }
+
+    private static IndexedNote indexedNote(NoteVector note) {
+        return IndexedNote.parse(note.getId(), note.getArchived(), note.getCreatedAt(), note.getSearchVector());
+    }
+
+    private void afterCommit(Long userId, long version, Consumer<UserNoteIndex> change) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(() -> {
+            UserNoteIndex index;
+            synchronized (this) {
+                index = indexes.get(userId);
+            }
+            if (index == null) {
+                return;
+            }
+            boolean current = index.advance(version, change);
+            synchronized (this) {
+                if (!current) {
+                    indexes.remove(userId, index);
+                }
+                enforceSizeLimit();
+            }
+        });
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void enforceSizeLimit() {
+        long total = 0;
+        for (UserNoteIndex index : indexes.values()) {
+            total += index.estimatedBytes();
+        }
+        Iterator<Map.Entry<Long, UserNoteIndex>> it = indexes.entrySet().iterator();
+        while (total > maxBytes && it.hasNext()) {
+            Map.Entry<Long, UserNoteIndex> eldest = it.next();
+            total -= eldest.getValue().estimatedBytes();
+            it.remove();
+            evictions.incrementAndGet();
+            log.debug("Evicted search index of user {}", eldest.getKey());
+        }
+    }
+
+    private static final class LoadTicket {
+        volatile boolean stale;
+    }
+}
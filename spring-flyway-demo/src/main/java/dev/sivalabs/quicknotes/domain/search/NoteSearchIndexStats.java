@@ -0,0 +1,12 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+public record NoteSearchIndexStats(
+        int users,
+        long notes,
+        long terms,
+        long postings,
+        long estimatedBytes,
+        long maxBytes,
+        long hits,
+        long misses,
+        long evictions) {}
@@ -0,0 +1,141 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+import java.util.Collection;
+
+/**
+ * PostgreSQL's {@code ts_rank} with the default weights and no normalization, which orders the results of the
+ * full-text engine. Follows calc_rank_and and calc_rank_or of tsrank.c in single precision, like PostgreSQL,
+ * so that the in-memory index ties and pages notes the same way as the database.
+ */
+final class TextRank {
+    // Indexed by weight, D = 0 .. A = 3
+    private static final float[] WEIGHTS = {0.1f, 0.2f, 0.4f, 1.0f};
+    private static final int MAX_ENTRY_POS = 1 << 14;
+    // Stand-ins for lexemes stored without positions, as in tsrank.c
+    private static final char[] POS_NULL_AND = {(char) (MAX_ENTRY_POS - 1)};
+    private static final char[] POS_NULL_OR = {0};
+
+    private TextRank() {}
+
+    /**
+     * The query lexemes as ts_rank walks them: sorted bytewise and without duplicates.
+     */
+    static String[] sortAndUnique(Collection<String> lexemes) {
+        return lexemes.stream().distinct().sorted(TextRank::compareLexemes).toArray(String[]::new);
+    }
+
+    /**
+     * Ranks a note matching every query lexeme as a prefix.
+     *
+     * @param query lexemes from {@link #sortAndUnique}
+     */
+    static float rank(IndexedNote note, String[] query) {
+        if (note.size() == 0 || query.length == 0) {
+            return 0f;
+        }
+        float rank = query.length > 1 ? rankAnd(note, query) : rankOr(note, query);
+        return rank < 0 ? 1e-20f : rank;
+    }
+
+    // Rewards pairs of query lexemes that occur close to each other
+    private static float rankAnd(IndexedNote note, String[] query) {
+        char[][] pos = new char[query.length][];
+        boolean[] posNull = new boolean[query.length];
+        float res = -1f;
+        for (int i = 0; i < query.length; i++) {
+            int first = note.firstWithPrefix(query[i]);
+            if (first < 0) {
+                continue;
+            }
+            for (int entry = first; entry < note.size() && note.lexemes()[entry].startsWith(query[i]); entry++) {
+                char[] post = note.positions(entry);
+                posNull[i] = post.length == 0;
+                pos[i] = posNull[i] ? POS_NULL_AND : post;
+                post = pos[i];
+                for (int k = 0; k < i; k++) {
+                    if (pos[k] == null) {
+                        continue;
+                    }
+                    char[] ct = pos[k];
+                    for (char l : post) {
+                        for (char p : ct) {
+                            int dist = Math.abs(position(l) - position(p));
+                            if (dist != 0 || posNull[i] || posNull[k]) {
+                                if (dist == 0) {
+                                    dist = MAX_ENTRY_POS;
+                                }
+                                float curw = (float) Math.sqrt(weight(l) * weight(p) * wordDistance(dist));
+                                res = res < 0 ? curw : (float) (1.0 - (1.0 - res) * (1.0 - curw));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return res;
+    }
+
+    // Sums the weights of the occurrences of every query lexeme
+    private static float rankOr(IndexedNote note, String[] query) {
+        float res = 0f;
+        for (String item : query) {
+            int first = note.firstWithPrefix(item);
+            if (first < 0) {
+                continue;
+            }
+            for (int entry = first; entry < note.size() && note.lexemes()[entry].startsWith(item); entry++) {
+                char[] post = note.positions(entry);
+                if (post.length == 0) {
+                    post = POS_NULL_OR;
+                }
+                float resj = 0f;
+                float wjm = -1f;
+                int jm = 0;
+                for (int j = 0; j < post.length; j++) {
+                    float w = weight(post[j]);
+                    resj = resj + w / ((j + 1) * (j + 1));
+                    if (w > wjm) {
+                        wjm = w;
+                        jm = j;
+                    }
+                }
+                // The sum of 1/i^2 converges to pi^2/6
+                res = (float) (res + (wjm + resj - wjm / ((jm + 1) * (jm + 1))) / 1.64493406685);
+            }
+        }
+        return res / query.length;
+    }
+
+    private static float wordDistance(int distance) {
+        if (distance > 100) {
+            return 1e-30f;
+        }
+        return (float) (1.0 / (1.005 + 0.05 * Math.exp(((float) distance) / 1.5 - 2)));
+    }
+
+    private static int position(char wordEntryPos) {
+        return wordEntryPos & (MAX_ENTRY_POS - 1);
+    }
+
+    private static float weight(char wordEntryPos) {
+        return WEIGHTS[wordEntryPos >> 14];
+    }
+
+    /**
+     * Compares lexemes by code point, which is the bytewise UTF-8 order of tsvector lexemes.
+     */
+    static int compareLexemes(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
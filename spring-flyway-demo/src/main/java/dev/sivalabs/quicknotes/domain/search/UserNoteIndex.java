@@ -0,0 +1,156 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over the search_vector lexemes of a single user's notes, as of a version of the user's
+ * note stats.
+ */
+final class UserNoteIndex {
+    // Rough per-term cost of the TreeMap entry, the term String and the posting list object
+    private static final int TERM_OVERHEAD_BYTES = 112;
+    // Rough per-note cost of the HashMap entry and the boxed id
+    private static final int NOTE_OVERHEAD_BYTES = 64;
+    private static final int INDEX_OVERHEAD_BYTES = 256;
+
+    private static final Comparator<RankedNote> FULL_TEXT_ORDER = Comparator.comparingDouble(RankedNote::rank)
+            .thenComparingLong(ranked -> ranked.note().createdAt())
+            .thenComparingLong(ranked -> ranked.note().id())
+            .reversed();
+
+    private final TreeMap<String, LongPostingList> postings = new TreeMap<>();
+    private final Map<Long, IndexedNote> notes = new HashMap<>();
+    private long version;
+    private long postingCount;
+    private long estimatedBytes = INDEX_OVERHEAD_BYTES;
+
+    UserNoteIndex(long version) {
+        this.version = version;
+    }
+
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Applies the change made by the write that moved the user's stats to the given version.
+     *
+     * @param change null when the change is not known
+     * @return false if the index misses writes before that one, or the change is not known, and must be dropped
+     */
+    synchronized boolean advance(long version, Consumer<UserNoteIndex> change) {
+        if (this.version >= version) {
+            // Loaded after the write
+            return true;
+        }
+        if (this.version != version - 1 || change == null) {
+            return false;
+        }
+        change.accept(this);
+        this.version = version;
+        return true;
+    }
+
+    synchronized void add(IndexedNote note) {
+        remove(note.id());
+        for (String lexeme : note.lexemes()) {
+            LongPostingList list = postings.get(lexeme);
+            if (list == null) {
+                list = new LongPostingList();
+                postings.put(lexeme, list);
+                estimatedBytes += TERM_OVERHEAD_BYTES + lexeme.length();
+            }
+            int capacity = list.capacity();
+            list.add(note.id());
+            estimatedBytes += 8L * (list.capacity() - capacity);
+            postingCount++;
+        }
+        notes.put(note.id(), note);
+        estimatedBytes += NOTE_OVERHEAD_BYTES + note.estimatedBytes();
+    }
+
+    // Only touches the posting lists of the note's own lexemes
+    synchronized void remove(long noteId) {
+        IndexedNote note = notes.remove(noteId);
+        if (note == null) {
+            return;
+        }
+        for (String lexeme : note.lexemes()) {
+            LongPostingList list = postings.get(lexeme);
+            int capacity = list.capacity();
+            list.remove(noteId);
+            postingCount--;
+            estimatedBytes -= 8L * (capacity - list.capacity());
+            if (list.isEmpty()) {
+                postings.remove(lexeme);
+                estimatedBytes -= TERM_OVERHEAD_BYTES + lexeme.length();
+            }
+        }
+        estimatedBytes -= NOTE_OVERHEAD_BYTES + note.estimatedBytes();
+    }
+
+    synchronized void setArchived(long noteId, boolean archived) {
+        IndexedNote note = notes.get(noteId);
+        if (note != null) {
+            note.setArchived(archived);
+        }
+    }
+
+    /**
+     * Returns the ids of notes matching every lexeme as a prefix, in the order of the full-text engine:
+     * by ts_rank, then newest first. None without lexemes.
+     */
+    synchronized long[] search(List<String> lexemes, boolean includeArchived) {
+        if (lexemes.isEmpty()) {
+            return new long[0];
+        }
+        long[] matches = null;
+        for (String lexeme : lexemes) {
+            long[] ids = new long[0];
+            for (Map.Entry<String, LongPostingList> entry : postings.tailMap(lexeme, true).entrySet()) {
+                if (!entry.getKey().startsWith(lexeme)) {
+                    break;
+                }
+                ids = entry.getValue().unionWith(ids);
+            }
+            matches = matches == null ? ids : LongPostingList.intersect(matches, ids);
+            if (matches.length == 0) {
+                return matches;
+            }
+        }
+        String[] query = TextRank.sortAndUnique(lexemes);
+        List<RankedNote> ranked = new ArrayList<>(matches.length);
+        for (long id : matches) {
+            IndexedNote note = notes.get(id);
+            if (includeArchived || !note.archived()) {
+                ranked.add(new RankedNote(note, TextRank.rank(note, query)));
+            }
+        }
+        ranked.sort(FULL_TEXT_ORDER);
+        return ranked.stream().mapToLong(hit -> hit.note().id()).toArray();
+    }
+
+    synchronized int noteCount() {
+        return notes.size();
+    }
+
+    synchronized int termCount() {
+        return postings.size();
+    }
+
+    synchronized long postingCount() {
+        return postingCount;
+    }
+
+    synchronized long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private record RankedNote(IndexedNote note, float rank) {}
+}
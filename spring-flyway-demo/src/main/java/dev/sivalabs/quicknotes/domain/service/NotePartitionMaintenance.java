@@ -0,0 +1,188 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the monthly partitions of notes_archived in shape when the notes table is partitioned
+ * (see db/partitioning): creates partitions ahead of time so archived notes never land in the
+ * default partition, and optionally detaches old months so they stop being part of every archive query.
+ * Detached partitions are kept as plain tables.
+ */
+@Component
+@ConditionalOnProperty(name = "app.notes.partitioning.enabled", havingValue = "true")
+public class NotePartitionMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(NotePartitionMaintenance.class);
+
+    private static final String PARENT_TABLE = "notes_archived";
+    private static final String DEFAULT_PARTITION = "notes_archived_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("notes_archived_p(\\d{6})");
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LOCK_TIMEOUT = "5s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final NoteSearchIndex noteSearchIndex;
+    private final int monthsAhead;
+    private final int detachAfterMonths;
+
+    NotePartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            NoteSearchIndex noteSearchIndex,
+            ApplicationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.noteSearchIndex = noteSearchIndex;
+        this.monthsAhead = properties.notes().partitioning().monthsAhead();
+        this.detachAfterMonths = properties.notes().partitioning().detachAfterMonths();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.notes.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        // In UTC rather than the JVM's time zone, so that every instance agrees on the current month
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        createPartitions(currentMonth, currentMonth.plusMonths(monthsAhead));
+        if (detachAfterMonths > 0) {
+            detachPartitionsBefore(currentMonth.minusMonths(detachAfterMonths));
+        }
+    }
+
+    /**
+     * Creates the missing monthly partitions between the given months, both inclusive.
+     *
+     * @return names of the created partitions
+     */
+    public List<String> createPartitions(YearMonth from, YearMonth to) {
+        List<YearMonth> existing = findPartitionMonths();
+        String storageParameters = storageParametersOf(DEFAULT_PARTITION);
+        List<String> created = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (existing.contains(month)) {
+                continue;
+            }
+            String name = partitionName(month);
+            String sql = "create table %s partition of %s for values from ('%s') to ('%s')%s"
+                    .formatted(
+                            name,
+                            PARENT_TABLE,
+                            month.atDay(1),
+                            month.plusMonths(1).atDay(1),
+                            storageParameters.isEmpty() ? "" : " with (" + storageParameters + ")");
+            try {
+                executeWithLockTimeout(sql);
+                created.add(name);
+                log.info("Created partition {}", name);
+            } catch (DataAccessException e) {
+                // Usually rows for that month already sit in the default partition, those need to be moved by hand
+                log.warn("Could not create partition {}", name, e);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Detaches the monthly partitions that end before the given month. Their notes are no longer visible.
+     *
+     * @return names of the detached partitions
+     */
+    public List<String> detachPartitionsBefore(YearMonth cutoff) {
+        List<String> detached = new ArrayList<>();
+        for (YearMonth month : findPartitionMonths()) {
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            String name = partitionName(month);
+            try {
+                // The detached notes leave the note stats of their owners in the same transaction
+                executeWithLockTimeout(
+                        "alter table %s detach partition %s".formatted(PARENT_TABLE, name),
+                        """
+                        update user_note_stats s
+                        set active_count = s.active_count - d.active,
+                            archived_count = s.archived_count - d.archived,
+                            content_bytes = s.content_bytes - d.bytes,
+                            version = s.version + 1
+                        from (select user_id,
+                                     count(*) filter (where not archived) as active,
+                                     count(*) filter (where archived) as archived,
+                                     coalesce(sum(octet_length(content)), 0) as bytes
+                              from %s group by user_id) d
+                        where s.user_id = d.user_id
+                        """.formatted(name));
+                detached.add(name);
+                log.info("Detached partition {}", name);
+            } catch (DataAccessException e) {
+                log.warn("Could not detach partition {}", name, e);
+            }
+        }
+        if (!detached.isEmpty()) {
+            entityManagerFactory.getCache().evict(Note.class);
+            noteSearchIndex.evictAll();
+        }
+        return detached;
+    }
+
+    List<YearMonth> findPartitionMonths() {
+        List<String> names = jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = ?::regclass
+                """, String.class, PARENT_TABLE);
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), SUFFIX_FORMAT));
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    // Storage parameters such as toast_tuple_target are not inherited from the partitioned table,
+    // new months take the ones the migrations set on the default partition
+    private String storageParametersOf(String table) {
+        String parameters = jdbcTemplate.queryForObject(
+                "select array_to_string(reloptions, ', ') from pg_class where oid = ?::regclass", String.class, table);
+        return parameters != null ? parameters : "";
+    }
+
+    private void executeWithLockTimeout(String... statements) {
+        // Both statements lock the partitioned table, give up instead of queueing behind long running queries
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("set local lock_timeout = '" + LOCK_TIMEOUT + "'");
+            for (String sql : statements) {
+                jdbcTemplate.execute(sql);
+            }
+        });
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "notes_archived_p" + month.format(SUFFIX_FORMAT);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.sivalabs.quicknotes.domain.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class SearchTerms {
+    private SearchTerms() {}
+
+    /**
+     * Splits text into lower-cased terms made of letters and digits only.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Turns the terms of the text into an input for {@code to_tsquery} that matches every term as a prefix,
+     * empty when there are no terms.
+     */
+    public static String toPrefixTsQuery(String text) {
+        // Only letters and digits survive tokenizing, so user input can never break the tsquery syntax
+        return tokenize(text).stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,105 @@
+package dev.sivalabs.quicknotes.domain.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free generator of 64-bit TSIDs, compatible with the layout of {@code io.hypersistence.tsid.TSID}:
+ * 42 bits of milliseconds since 2020-01-01 followed by 22 bits holding the node and a counter.
+ * <p>
+ * The node bits are split between the configured node id of this instance and a stripe index.
+ * Each stripe owns its own counter, so threads hashing to different stripes never contend and
+ * ids from different stripes or nodes can never collide. When a stripe's counter overflows within
+ * a millisecond it carries into the time bits, borrowing the next millisecond.
+ */
+public final class TsidGenerator {
+    static final long TSID_EPOCH = 1577836800000L; // 2020-01-01T00:00:00Z
+    private static final int RANDOM_BITS = 22;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int counterBits;
+    private final long counterMask;
+
+    /**
+     * @param nodeId    id of this instance, must fit into {@code nodeBits}
+     * @param nodeBits  bits reserved for the node id
+     * @param stripes   number of independent counters, a power of two
+     */
+    public TsidGenerator(int nodeId, int nodeBits, int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two: " + stripes);
+        }
+        int stripeBits = Integer.numberOfTrailingZeros(stripes);
+        if (nodeBits < 0 || nodeBits + stripeBits > RANDOM_BITS - 8) {
+            throw new IllegalArgumentException("nodeBits + log2(stripes) must not exceed " + (RANDOM_BITS - 8));
+        }
+        if (nodeId < 0 || nodeId >= (1 << nodeBits)) {
+            throw new IllegalArgumentException("nodeId " + nodeId + " does not fit into " + nodeBits + " bits");
+        }
+        this.counterBits = RANDOM_BITS - nodeBits - stripeBits;
+        this.counterMask = (1L << counterBits) - 1;
+        this.stripeMask = stripes - 1;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            long node = ((long) nodeId << stripeBits) | i;
+            this.stripes[i] = new Stripe(node << counterBits);
+        }
+    }
+
+    public long nextId() {
+        Stripe stripe = stripes[stripeIndex()];
+        long state = stripe.reserve(1);
+        return compose(stripe, state);
+    }
+
+    /**
+     * Reserves {@code count} ids with a single atomic operation, for bulk inserts.
+     * The returned ids are strictly increasing.
+     */
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        Stripe stripe = stripes[stripeIndex()];
+        long first = stripe.reserve(count);
+        for (int i = 0; i < count; i++) {
+            ids[i] = compose(stripe, first + i);
+        }
+        return ids;
+    }
+
+    private int stripeIndex() {
+        return (int) (Thread.currentThread().threadId() & stripeMask);
+    }
+
+    private long compose(Stripe stripe, long state) {
+        long time = state >>> counterBits;
+        return (time << RANDOM_BITS) | stripe.nodeBits | (state & counterMask);
+    }
+
+    private final class Stripe {
+        // (milliseconds since TSID_EPOCH << counterBits) | counter of the last reserved id
+        private final AtomicLong state = new AtomicLong();
+        private final long nodeBits;
+
+        private Stripe(long nodeBits) {
+            this.nodeBits = nodeBits;
+        }
+
+        /**
+         * Returns the state of the first of {@code count} consecutive reserved ids.
+         */
+        long reserve(int count) {
+            while (true) {
+                long current = state.get();
+                long now = (System.currentTimeMillis() - TSID_EPOCH) << counterBits;
+                // A new millisecond restarts the counter, otherwise (or if the clock went back) keep counting
+                long first = now > current ? now : current + 1;
+                if (state.compareAndSet(current, first + count - 1)) {
+                    return first;
+                }
+            }
+        }
+    }
+}
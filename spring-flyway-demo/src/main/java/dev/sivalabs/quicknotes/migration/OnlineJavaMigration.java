@@ -0,0 +1,31 @@
+package dev.sivalabs.quicknotes.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+
+/**
+ * Base class of Java migrations for large tables, such as {@code db.migration.V10__Add_notes_title_lower}.
+ * They run outside a transaction, in auto-commit mode, so they can use the concurrent index builds and batched
+ * backfills of {@link OnlineMigrations}:
+ *
+ * <pre>
+ * public class V10__Add_notes_title_lower extends OnlineJavaMigration {
+ *     public void migrate(Context context) throws Exception {
+ *         Connection connection = context.getConnection();
+ *         OnlineMigrations.executeWithLockTimeout(connection, "alter table notes add column title_lower text");
+ *         OnlineMigrations.backfill(
+ *                 connection, Backfill.of("notes", "title_lower = lower(title)", "title_lower is null"));
+ *         OnlineMigrations.createIndexConcurrently(connection, "idx_notes_title_lower", "notes (title_lower)");
+ *     }
+ * }
+ * </pre>
+ *
+ * Keep one schema change per migration: a failure leaves the completed steps in place, and every step has to be
+ * safe to run again when the migration is repaired and retried.
+ */
+public abstract class OnlineJavaMigration extends BaseJavaMigration {
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+-- Note counters per user, maintained by NoteService in the transaction of every note write.
+-- content_bytes is the uncompressed UTF-8 size of the note contents.
+create table user_note_stats
+(
+    user_id          bigint    not null,
+    active_count     bigint    not null default 0,
+    archived_count   bigint    not null default 0,
+    content_bytes    bigint    not null default 0,
+    last_modified_at timestamp,
+    primary key (user_id),
+    foreign key (user_id) references users (id) on delete cascade
+);
+
+insert into user_note_stats (user_id, active_count, archived_count, content_bytes, last_modified_at)
+select u.id,
+       count(n.id) filter (where not n.archived),
+       count(n.id) filter (where n.archived),
+       coalesce(sum(octet_length(n.content)), 0),
+       max(coalesce(n.updated_at, n.created_at))
+from users u
+left join notes n on n.user_id = u.id
+group by u.id;
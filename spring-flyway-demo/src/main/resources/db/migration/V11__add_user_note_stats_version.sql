@@ -0,0 +1,4 @@
+-- Incremented by every note write of the user, so that copies of a user's notes held by an instance,
+-- like the in-memory search index, can tell whether they are still current.
+-- A constant default only changes the catalog, existing rows are not rewritten.
+alter table user_note_stats add column version bigint not null default 0;
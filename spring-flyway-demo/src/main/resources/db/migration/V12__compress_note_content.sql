@@ -0,0 +1,22 @@
+-- Compresses note content with lz4 instead of PostgreSQL's default pglz: several times faster at a similar ratio,
+-- and content stays plain text to the searches. Only content written from now on, existing content is rewritten
+-- by the backfill of NoteContentCompression.
+-- Rows up to 4KB stay uncompressed instead of about 2KB. toast_tuple_target is not inherited from a partitioned
+-- table, so it is set on every leaf table of notes. db/partitioning applies both again after V7.
+set local lock_timeout = '2s';
+
+do $$
+declare
+    leaf regclass;
+begin
+    begin
+        alter table notes alter column content set compression lz4;
+    exception
+        when feature_not_supported then
+            raise warning 'PostgreSQL is built without lz4 support, note content stays compressed with pglz';
+    end;
+    for leaf in select relid from pg_partition_tree('notes') where isleaf loop
+        execute format('alter table %s set (toast_tuple_target = 4096)', leaf);
+    end loop;
+end
+$$;
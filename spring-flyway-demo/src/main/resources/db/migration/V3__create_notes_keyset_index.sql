@@ -0,0 +1,2 @@
+-- Supports keyset pagination: where user_id = ? and archived = ? order by created_at desc, id desc
+create index idx_notes_user_archived_created_id on notes (user_id, archived, created_at desc, id desc);
@@ -0,0 +1,9 @@
+-- Maintained by PostgreSQL on every insert/update, title matches rank above content matches
+alter table notes
+    add column search_vector tsvector
+        generated always as (
+            setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('english', coalesce(content, '')), 'B')
+        ) stored;
+
+create index idx_notes_search_vector on notes using gin (search_vector);
@@ -0,0 +1,5 @@
+-- Lets "contains" searches of the form lower(column) LIKE '%...%' use an index instead of a sequential scan
+create extension if not exists pg_trgm;
+
+create index idx_notes_title_trgm on notes using gin (lower(title) gin_trgm_ops);
+create index idx_notes_content_trgm on notes using gin (lower(content) gin_trgm_ops);
@@ -0,0 +1,4 @@
+-- All notes of a user, newest first: include-archived search paths, count by user and the user_id foreign key
+create index idx_notes_user_created_id on notes (user_id, created_at desc, id desc);
+
+-- Active notes need no partial index, V3's index leads with (user_id, archived) and serves archived = false
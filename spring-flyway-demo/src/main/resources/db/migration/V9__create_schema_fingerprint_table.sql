@@ -0,0 +1,8 @@
+-- Fingerprint of the migrations last applied per migrator, see app.migrations.mode
+create table schema_fingerprint
+(
+    migrator    text      not null,
+    fingerprint text      not null,
+    updated_at  timestamp not null,
+    primary key (migrator)
+);
@@ -0,0 +1,18 @@
+-- V7 rebuilds notes, the new tables start with pglz and no toast_tuple_target. Same settings as V12.
+set local lock_timeout = '2s';
+
+do $$
+declare
+    leaf regclass;
+begin
+    begin
+        alter table notes alter column content set compression lz4;
+    exception
+        when feature_not_supported then
+            raise warning 'PostgreSQL is built without lz4 support, note content stays compressed with pglz';
+    end;
+    for leaf in select relid from pg_partition_tree('notes') where isleaf loop
+        execute format('alter table %s set (toast_tuple_target = 4096)', leaf);
+    end loop;
+end
+$$;
@@ -1,9 +1,42 @@
 package dev.sivalabs.quicknotes;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.sivalabs.quicknotes.domain.exception.ResourceNotFoundException;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import dev.sivalabs.quicknotes.domain.service.UserService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.micrometer.metrics.test.autoconfigure.AutoConfigureMetrics;
 
+// Tests only get an in-memory registry by default, the Prometheus one is needed for the scrape endpoint
+@AutoConfigureMetrics
 class ApplicationTests extends BaseIT {
 
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
     @Test
     void contextLoads() {}
+
+    @Test
+    void shouldExposeServiceAndPersistenceMetricsForPrometheus() {
+        noteService.findUserNotes(1L, 1);
+        userService.findByEmail("admin@gmail.com");
+        assertThatThrownBy(() -> noteService.getNoteById(999L, 1L)).isInstanceOf(ResourceNotFoundException.class);
+
+        assertThat(mvc.get().uri("/actuator/prometheus"))
+                .hasStatusOk()
+                .bodyText()
+                .contains("quicknotes_service_seconds_bucket{")
+                .containsPattern("quicknotes_service_seconds_count\\{[^}]*operation=\"findUserNotes\"[^}]*outcome=\"success\"")
+                .containsPattern("quicknotes_service_seconds_count\\{[^}]*operation=\"findByEmail\"[^}]*outcome=\"found\"")
+                .containsPattern("quicknotes_service_seconds_count\\{[^}]*operation=\"getNoteById\"[^}]*outcome=\"not-found\"")
+                .contains("hikaricp_connections_active")
+                .contains("hibernate_sessions_open_total");
+    }
 }
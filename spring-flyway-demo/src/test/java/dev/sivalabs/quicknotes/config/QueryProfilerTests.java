@@ -0,0 +1,123 @@
+package dev.sivalabs.quicknotes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.repo.NoteRepository;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(
+        webEnvironment = NONE,
+        properties = {
+            "app.query-profiling.enabled=true",
+            "app.query-profiling.slow-query-threshold=0ms",
+            "app.query-profiling.n-plus-one-threshold=5"
+        })
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+@ExtendWith(OutputCaptureExtension.class)
+class QueryProfilerTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private static final Long ADMIN_USER_ID = 1L;
+
+    @Test
+    void shouldRecordStatementsWithRepositoryMethod(CapturedOutput output) {
+        noteService.findUserNotes(ADMIN_USER_ID, 1);
+
+        assertThat(meterRegistry
+                        .get(QueryProfiler.QUERY_METRIC)
+                        .tag("repository", "NoteRepository.findUserNotes")
+                        .tag("type", "select")
+                        .timer()
+                        .count())
+                .isPositive();
+        // Rows of a select are not counted, that would need a proxy around every ResultSet
+        assertThat(rowsOf("NoteRepository.findUserNotes")).isZero();
+        assertThat(output).contains("Slow query:").contains("batch=false, from NoteRepository.findUserNotes");
+    }
+
+    @Test
+    void shouldRecordUpdateCountOfWrites(CapturedOutput output) {
+        double rowsBefore = rowsOf("NoteRepository.archiveNotesCreatedBefore");
+
+        noteService.archiveNotesCreatedBefore(ADMIN_USER_ID, Instant.now());
+
+        // The 10 active notes of the admin user
+        assertThat(rowsOf("NoteRepository.archiveNotesCreatedBefore") - rowsBefore).isEqualTo(10);
+        assertThat(output).contains("10 rows, batch=false, from NoteRepository.archiveNotesCreatedBefore");
+    }
+
+    @Test
+    void shouldReportRepeatedSelectsInOneTransaction(CapturedOutput output) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= 10; id++) {
+                noteRepository.findById(id);
+            }
+        });
+
+        assertThat(output).contains("Possible N+1: the same select ran 5 times in one transaction");
+        assertThat(meterRegistry
+                        .get(QueryProfiler.N_PLUS_ONE_METRIC)
+                        .tag("repository", "NoteRepository.findById")
+                        .counter()
+                        .count())
+                .isPositive();
+    }
+
+    @Test
+    void shouldNotReportSelectsSpreadOverTransactions(CapturedOutput output) {
+        for (long id = 1; id <= 10; id++) {
+            noteService.getNoteById(id, ADMIN_USER_ID);
+        }
+
+        assertThat(output).doesNotContain("Possible N+1");
+    }
+
+    @Test
+    void shouldRecordSelectWhenItReturns(CapturedOutput output) throws SQLException {
+        String sql = "select id from notes where user_id = 1 order by id";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement(sql).executeQuery();
+
+            assertThat(output).contains("batch=false, from none: " + sql);
+        }
+    }
+
+    private double rowsOf(String repositoryMethod) {
+        var summary = meterRegistry
+                .find(QueryProfiler.ROWS_METRIC)
+                .tag("repository", repositoryMethod)
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
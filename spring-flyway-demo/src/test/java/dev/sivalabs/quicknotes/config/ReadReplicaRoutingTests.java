@@ -0,0 +1,137 @@
+package dev.sivalabs.quicknotes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistrar;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+// The test database doubles as replica-1, replica-2 points at a port nothing listens on
+@SpringBootTest(
+        webEnvironment = NONE,
+        properties = {"app.read-replicas.enabled=true", "app.read-replicas.read-your-writes-window=1m"})
+@Import({TestcontainersConfig.class, ReadReplicaRoutingTests.ReplicaConfig.class})
+@Sql("/test-data.sql")
+class ReadReplicaRoutingTests {
+    private static final Long ADMIN_USER_ID = 1L;
+    private static final Long DEMO_USER_ID = 2L;
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ReplicaConfig {
+        @Bean
+        DynamicPropertyRegistrar replicaProperties(PostgreSQLContainer postgres) {
+            // Both nodes from one source, a list is bound from a single property source
+            return registry -> {
+                registry.add("app.read-replicas.nodes[0].url", postgres::getJdbcUrl);
+                registry.add("app.read-replicas.nodes[1].url", () -> "jdbc:postgresql://localhost:1/postgres");
+            };
+        }
+    }
+
+    @Autowired
+    private ReadReplicaRouter router;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void checkReplicas() {
+        router.checkHealth();
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToHealthyReplica() {
+        assertThat(router.replicas())
+                .extracting(ReadReplicaRouter.Replica::name, ReadReplicaRouter.Replica::isHealthy)
+                .containsExactly(tuple("replica-1", true), tuple("replica-2", false));
+
+        assertThat(applicationName(true)).isEqualTo("replica-1");
+        assertThat(applicationName(false)).isNotEqualTo("replica-1");
+        assertThat(meterRegistry
+                        .get(ReadReplicaRouter.ROUTING_METRIC)
+                        .tag("target", "replica-1")
+                        .counter()
+                        .count())
+                .isPositive();
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaLagsBehind() {
+        router.replicas().getFirst().update(true, Duration.ofMinutes(1));
+
+        assertThat(applicationName(true)).isNotEqualTo("replica-1");
+
+        router.checkHealth();
+        assertThat(applicationName(true)).isEqualTo("replica-1");
+    }
+
+    @Test
+    void shouldReportPoolMetricsAndHealthOfEveryNode() {
+        assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "primary").gauge())
+                .isNotNull();
+        assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-1").gauge())
+                .isNotNull();
+
+        Health health = router.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKeys("primary", "replica-1", "replica-2");
+        assertThat(health.getDetails().get("replica-2")).isEqualTo(Map.of(
+                "role", "replica", "healthy", false, "lagMillis", router.replicas().getLast().lag().toMillis()));
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimary() {
+        noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Replica test", "Written to the primary"));
+
+        assertThat(router.isInReadYourWritesWindow(ADMIN_USER_ID)).isTrue();
+        assertThat(router.isInReadYourWritesWindow(DEMO_USER_ID)).isFalse();
+        assertThat(applicationNameAs(ADMIN_USER_ID)).isNotEqualTo("replica-1");
+        assertThat(applicationNameAs(DEMO_USER_ID)).isEqualTo("replica-1");
+    }
+
+    private String applicationNameAs(Long userId) {
+        Long previous = ReadReplicaRouter.setCurrentUser(userId);
+        try {
+            return applicationName(true);
+        } finally {
+            ReadReplicaRouter.setCurrentUser(previous);
+        }
+    }
+
+    private String applicationName(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject("select current_setting('application_name')", String.class));
+    }
+}
@@ -0,0 +1,38 @@
+package dev.sivalabs.quicknotes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import db.partitioning.V7__Partition_notes;
+import dev.sivalabs.quicknotes.domain.repo.NoteVector;
+import java.sql.Connection;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.data.projection.TargetAware;
+
+class RuntimeHintsConfigTests {
+
+    @Test
+    void shouldRegisterNativeImageHints() {
+        RuntimeHints hints = new RuntimeHints();
+        ClassLoader classLoader = getClass().getClassLoader();
+        new RuntimeHintsConfig.QuickNotesRuntimeHints().registerHints(hints, classLoader);
+        new FlywayConfig.MigrationResourcesHints().registerHints(hints, classLoader);
+
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/partitioning/V7__Partition_notes.class"))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                        .onType(V7__Partition_notes.class)
+                        .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("application.conf")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies()
+                        .forInterfaces(AopProxyUtils.completeJdkProxyInterfaces(NoteVector.class, TargetAware.class)))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, Connection.class))
+                .accepts(hints);
+    }
+}
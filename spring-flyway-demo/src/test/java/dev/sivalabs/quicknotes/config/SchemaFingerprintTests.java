@@ -0,0 +1,75 @@
+package dev.sivalabs.quicknotes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(webEnvironment = NONE, properties = "app.migrations.mode=skip-if-current")
+@Import(TestcontainersConfig.class)
+class SchemaFingerprintTests {
+
+    @Autowired
+    private FlywayMigrationStrategy migrationStrategy;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private MigrationTimings timings;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldRecordFingerprintAndPhaseTimingsOnStartup() {
+        assertThat(storedFingerprint()).hasSize(64);
+        assertThat(timings.phases()).containsKeys("fingerprint", "migrate", "record");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timings.bindTo(registry);
+        assertThat(registry.get(MigrationTimings.MIGRATION_METRIC)
+                        .tag("phase", "migrate")
+                        .timer()
+                        .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipMigrationsWhenFingerprintIsCurrent() {
+        Timestamp recordedAt = recordedAt();
+
+        migrationStrategy.migrate(flyway);
+
+        assertThat(recordedAt()).isEqualTo(recordedAt);
+    }
+
+    @Test
+    void shouldMigrateWhenFingerprintIsOutdated() {
+        String fingerprint = storedFingerprint();
+        jdbcTemplate.update("update schema_fingerprint set fingerprint = 'outdated' where migrator = 'flyway'");
+
+        migrationStrategy.migrate(flyway);
+
+        assertThat(storedFingerprint()).isEqualTo(fingerprint);
+    }
+
+    private String storedFingerprint() {
+        return jdbcTemplate.queryForObject(
+                "select fingerprint from schema_fingerprint where migrator = 'flyway'", String.class);
+    }
+
+    private Timestamp recordedAt() {
+        return jdbcTemplate.queryForObject(
+                "select updated_at from schema_fingerprint where migrator = 'flyway'", Timestamp.class);
+    }
+}
@@ -0,0 +1,213 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Verifies that the NoteRepository access paths are served by indexes once notes holds more than a toy dataset.
+ * The statements explained are the ones Hibernate sends for each repository method, with their parameters.
+ */
+@SpringBootTest(webEnvironment = NONE)
+@Import({TestcontainersConfig.class, NoteQueryPlanTests.StatementCaptureConfig.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NoteQueryPlanTests {
+
+    private static final long FIRST_SEEDED_USER_ID = 1000L;
+    private static final long USER_ID = 1042L;
+    private static final int SEEDED_USERS = 100;
+    private static final int NOTES_PER_USER = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private StatementCapture statementCapture;
+
+    @BeforeAll
+    void seedLargeDataset() {
+        jdbcTemplate.update("delete from notes where user_id >= ?", FIRST_SEEDED_USER_ID);
+        jdbcTemplate.update("delete from users where id >= ?", FIRST_SEEDED_USER_ID);
+        jdbcTemplate.update("""
+                insert into users(id, email, password, name, role, created_at)
+                select u, 'user' || u || '@example.com', 'secret', 'User ' || u, 'ROLE_USER', CURRENT_TIMESTAMP
+                from generate_series(?, ?) u
+                """, FIRST_SEEDED_USER_ID, FIRST_SEEDED_USER_ID + SEEDED_USERS - 1);
+        jdbcTemplate.update("""
+                insert into notes(id, title, content, user_id, archived, created_at)
+                select 1000000 + g,
+                       'Note ' || g,
+                       'Generated content for note ' || g || ' about topic ' || (g % 97),
+                       ? + (g % ?),
+                       g % 5 = 0,
+                       CURRENT_TIMESTAMP - make_interval(secs => g)
+                from generate_series(1, ?) g
+                """, FIRST_SEEDED_USER_ID, SEEDED_USERS, SEEDED_USERS * NOTES_PER_USER);
+        jdbcTemplate.execute("analyze users");
+        jdbcTemplate.execute("analyze notes");
+    }
+
+    @AfterAll
+    void removeLargeDataset() {
+        jdbcTemplate.update("delete from notes where user_id >= ?", FIRST_SEEDED_USER_ID);
+        jdbcTemplate.update("delete from users where id >= ?", FIRST_SEEDED_USER_ID);
+    }
+
+    static Stream<Named<Consumer<NoteRepository>>> repositoryCalls() {
+        Instant cursor = Instant.now().minus(1, ChronoUnit.DAYS);
+        return Stream.of(
+                call("findUserNotes", repo -> repo.findUserNotes(USER_ID, false, PageRequest.of(2, 10))),
+                call("findUserArchivedNotes", repo -> repo.findUserNotes(USER_ID, true, PageRequest.of(0, 10))),
+                call("findUserNotesFirstPage", repo -> repo.findUserNotesFirstPage(USER_ID, false, Limit.of(11))),
+                call(
+                        "findUserNotesAfter",
+                        repo -> repo.findUserNotesAfter(USER_ID, false, cursor, 1050000L, Limit.of(11))),
+                call("countByUserIdAndArchived", repo -> repo.countByUserIdAndArchived(USER_ID, false)),
+                call("countByUserId", repo -> repo.countByUserId(USER_ID)),
+                call(
+                        "searchNonArchivedNotes",
+                        repo -> repo.searchNonArchivedNotes(USER_ID, "topic 7", PageRequest.of(0, 10))),
+                call("searchAllNotes", repo -> repo.searchAllNotes(USER_ID, "topic 7", PageRequest.of(0, 10))),
+                call(
+                        "fullTextSearchNoteIds",
+                        repo -> repo.fullTextSearchNoteIds(
+                                USER_ID, "topic & generated", false, PageRequest.of(0, 10))),
+                call(
+                        "fullTextSearchMatches",
+                        repo -> repo.fullTextSearchMatches(
+                                USER_ID, "topic & generated", true, PageRequest.of(0, 10))),
+                call(
+                        "trigramSearchNoteIds",
+                        repo -> repo.trigramSearchNoteIds(USER_ID, "%topic 7%", false, PageRequest.of(0, 10))));
+    }
+
+    private static Named<Consumer<NoteRepository>> call(String method, Consumer<NoteRepository> action) {
+        return Named.of(method, action);
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositoryCalls")
+    void shouldNotFallBackToSequentialScan(Consumer<NoteRepository> call) {
+        List<CapturedStatement> statements = statementCapture.capture(() -> call.accept(noteRepository));
+
+        assertThat(statements).isNotEmpty();
+        for (CapturedStatement statement : statements) {
+            List<String> plan = explain(statement);
+            assertThat(plan)
+                    .as("plan for %s", statement.sql())
+                    .noneMatch(line -> line.contains("Seq Scan on notes"));
+        }
+    }
+
+    // Binds the captured parameters with the same JDBC setters Hibernate used
+    private List<String> explain(CapturedStatement statement) {
+        return jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement("explain " + statement.sql());
+                    for (ParameterSetOperation operation : statement.parameters()) {
+                        try {
+                            operation.getMethod().invoke(ps, operation.getArgs());
+                        } catch (IllegalAccessException | InvocationTargetException e) {
+                            throw new IllegalStateException("Cannot bind " + operation.getArgs()[0], e);
+                        }
+                    }
+                    return ps;
+                },
+                (rs, rowNum) -> rs.getString(1));
+    }
+
+    record CapturedStatement(String sql, List<ParameterSetOperation> parameters) {}
+
+    /**
+     * Records the statements the current thread runs while capturing.
+     */
+    static class StatementCapture implements QueryExecutionListener {
+        private final ThreadLocal<List<CapturedStatement>> captured = new ThreadLocal<>();
+
+        List<CapturedStatement> capture(Runnable action) {
+            List<CapturedStatement> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                action.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {}
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<CapturedStatement> statements = captured.get();
+            if (statements == null) {
+                return;
+            }
+            for (QueryInfo queryInfo : queryInfoList) {
+                List<ParameterSetOperation> parameters =
+                        queryInfo.getParametersList().isEmpty()
+                                ? List.of()
+                                : List.copyOf(queryInfo.getParametersList().getFirst());
+                statements.add(new CapturedStatement(queryInfo.getQuery(), parameters));
+            }
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StatementCaptureConfig {
+        @Bean
+        static StatementCapture statementCapture() {
+            return new StatementCapture();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCaptureDataSourcePostProcessor(StatementCapture statementCapture) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name(beanName)
+                                .listener(statementCapture)
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.CompressionBackfillResult;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(
+        webEnvironment = NONE,
+        properties = {
+            "app.notes.content-compression.backfill-batch-size=10",
+            "app.notes.content-compression.backfill-pause=0ms"
+        })
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+class NoteContentCompressionTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteContentCompression compression;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final Long ADMIN_USER_ID = 1L;
+
+    @Test
+    void shouldCompressLargeContentWithLz4() {
+        String log = largeLog();
+
+        Note note = noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Build log", log));
+
+        assertThat(compression.isLz4Enabled()).isTrue();
+        assertThat(compressionOf(note.getId())).isEqualTo("lz4");
+        assertThat(noteService.getNoteById(note.getId(), ADMIN_USER_ID).getContent()).isEqualTo(log);
+        // Compressed content is still plain text to the search queries
+        PagedResult<Note> result = noteService.searchNotes(ADMIN_USER_ID, "step 4242 finished", 1, false);
+        assertThat(result.data()).extracting(Note::getId).containsExactly(note.getId());
+    }
+
+    @Test
+    void shouldRecompressPglzContent() {
+        String log = largeLog();
+        // Content written before the migration is compressed with pglz
+        jdbcTemplate.execute("alter table notes alter column content set compression pglz");
+        Long noteId;
+        try {
+            noteId = noteService
+                    .createNote(new CreateNoteCmd(ADMIN_USER_ID, "Old build log", log))
+                    .getId();
+        } finally {
+            jdbcTemplate.execute("alter table notes alter column content set compression lz4");
+        }
+        assertThat(compressionOf(noteId)).isEqualTo("pglz");
+
+        CompressionBackfillResult result = compression.backfill();
+
+        assertThat(result.rewritten()).isEqualTo(1);
+        assertThat(result.scanned())
+                .isEqualTo(jdbcTemplate.queryForObject("select count(*) from notes", Long.class));
+        assertThat(compressionOf(noteId)).isEqualTo("lz4");
+        assertThat(noteService.getNoteById(noteId, ADMIN_USER_ID).getContent()).isEqualTo(log);
+        assertThat(compression.backfill().rewritten()).isZero();
+    }
+
+    @Test
+    void shouldNotCompressContentBelowThreshold() {
+        // Well above PostgreSQL's default threshold of about 2KB, but below the 4KB set by the migrations
+        String content = "step finished\n".repeat(200);
+
+        Note note = noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Short log", content));
+
+        assertThat(compressionOf(note.getId())).isNull();
+        assertThat(jdbcTemplate.queryForObject(
+                        "select array_to_string(reloptions, ',') from pg_class where oid = 'notes'::regclass",
+                        String.class))
+                .isEqualTo("toast_tuple_target=4096");
+    }
+
+    private String compressionOf(Long noteId) {
+        return jdbcTemplate.queryForObject(
+                "select pg_column_compression(content) from notes where id = ?", String.class, noteId);
+    }
+
+    private static String largeLog() {
+        var log = new StringBuilder();
+        for (int step = 1; step <= 5000; step++) {
+            log.append("INFO [build] step ").append(step).append(" finished in ").append(step % 97).append(" ms\n");
+        }
+        return log.toString();
+    }
+}
@@ -6,16 +6,39 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 
 import dev.sivalabs.quicknotes.TestcontainersConfig;
 import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.exception.BadRequestException;
 import dev.sivalabs.quicknotes.domain.exception.ResourceNotFoundException;
 import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.model.CursorResult;
+import dev.sivalabs.quicknotes.domain.model.ExportFormat;
+import dev.sivalabs.quicknotes.domain.model.ImportBatch;
+import dev.sivalabs.quicknotes.domain.model.ImportResult;
+import dev.sivalabs.quicknotes.domain.model.NoteSearchHit;
+import dev.sivalabs.quicknotes.domain.model.NoteStats;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
 import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.model.SlicedResult;
 import dev.sivalabs.quicknotes.domain.model.UpdateNoteCmd;
 import dev.sivalabs.quicknotes.domain.repo.NoteRepository;
+import dev.sivalabs.quicknotes.domain.utils.TsidGenerator;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
 
 @SpringBootTest(webEnvironment = NONE)
 @Import(TestcontainersConfig.class)
@@ -28,6 +51,15 @@ class NoteServiceTests {
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private TsidGenerator tsidGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private static final Long ADMIN_USER_ID = 1L;
     private static final Long REGULAR_USER_ID = 2L;
     private static final Long NON_EXISTENT_USER_ID = 999L;
@@ -64,6 +96,179 @@ class NoteServiceTests {
         assertThat(page3.hasPrevious()).isTrue();
     }
 
+    @Test
+    void shouldFindUserNoteSummaries() {
+        PagedResult<NoteSummary> page1 = noteService.findUserNoteSummaries(REGULAR_USER_ID, 1);
+
+        assertThat(page1.data()).hasSize(10);
+        assertThat(page1.totalElements()).isEqualTo(21);
+        assertThat(page1.data()).allMatch(summary -> !summary.archived());
+        // Same order as the entity listing
+        assertThat(page1.data()).extracting(NoteSummary::id).containsExactlyElementsOf(
+                noteService.findUserNotes(REGULAR_USER_ID, 1).data().stream().map(Note::getId).toList());
+    }
+
+    @Test
+    void shouldTruncateNoteSummaryPreview() {
+        String longContent = "x".repeat(5_000);
+        noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Long note", longContent));
+
+        PagedResult<NoteSummary> result = noteService.searchNoteSummaries(ADMIN_USER_ID, "Long note", 1, false);
+
+        assertThat(result.data()).singleElement().satisfies(summary -> {
+            assertThat(summary.title()).isEqualTo("Long note");
+            assertThat(summary.preview()).hasSize(200);
+        });
+    }
+
+    @Test
+    void shouldFindUserArchivedNoteSummaries() {
+        PagedResult<NoteSummary> result = noteService.findUserArchivedNoteSummaries(ADMIN_USER_ID, 1);
+
+        assertThat(result.data()).hasSize(2);
+        assertThat(result.data()).allMatch(NoteSummary::archived);
+    }
+
+    @Test
+    void shouldFindUserNotesSlice() {
+        // Demo user has 21 non-archived notes, PAGE_SIZE is 10
+        SlicedResult<Note> page1 = noteService.findUserNotesSlice(REGULAR_USER_ID, 1);
+        assertThat(page1.data()).hasSize(10);
+        assertThat(page1.hasNext()).isTrue();
+        assertThat(page1.hasPrevious()).isFalse();
+
+        SlicedResult<Note> page3 = noteService.findUserNotesSlice(REGULAR_USER_ID, 3);
+        assertThat(page3.data()).hasSize(1);
+        assertThat(page3.hasNext()).isFalse();
+        assertThat(page3.hasPrevious()).isTrue();
+    }
+
+    @Test
+    void shouldCountUserNotes() {
+        assertThat(noteService.countUserNotes(REGULAR_USER_ID)).isEqualTo(21);
+        assertThat(noteService.countUserArchivedNotes(ADMIN_USER_ID)).isEqualTo(2);
+
+        noteService.archiveNote(1L, ADMIN_USER_ID);
+
+        assertThat(noteService.countUserArchivedNotes(ADMIN_USER_ID)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldMaintainNoteStats() {
+        NoteStats initial = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(initial.activeCount()).isEqualTo(10);
+        assertThat(initial.archivedCount()).isEqualTo(2);
+        assertThat(initial.contentBytes()).isPositive();
+
+        Note created = noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Stats", "12345"));
+        noteService.updateNote(new UpdateNoteCmd(created.getId(), ADMIN_USER_ID, "Stats", "1234567890"));
+        noteService.archiveNote(created.getId(), ADMIN_USER_ID);
+
+        NoteStats afterWrites = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(afterWrites.activeCount()).isEqualTo(10);
+        assertThat(afterWrites.archivedCount()).isEqualTo(3);
+        assertThat(afterWrites.contentBytes()).isEqualTo(initial.contentBytes() + 10);
+        assertThat(afterWrites.lastModifiedAt()).isNotNull();
+
+        noteService.deleteNote(created.getId(), ADMIN_USER_ID);
+        noteService.deleteNote(1L, ADMIN_USER_ID);
+
+        NoteStats afterDeletes = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(afterDeletes.activeCount()).isEqualTo(9);
+        assertThat(afterDeletes.archivedCount()).isEqualTo(2);
+
+        // The maintained counters match a recount from the notes table
+        noteService.recalculateNoteStats();
+        assertThat(noteService.getNoteStats(ADMIN_USER_ID))
+                .usingRecursiveComparison()
+                .ignoringFields("lastModifiedAt")
+                .isEqualTo(afterDeletes);
+    }
+
+    @Test
+    void shouldMaintainNoteStatsWhenDeletingArchivedNotes() {
+        NoteStats initial = noteService.getNoteStats(ADMIN_USER_ID);
+
+        assertThat(noteService.deleteArchivedNotes(ADMIN_USER_ID)).isEqualTo(2);
+
+        NoteStats afterDelete = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(afterDelete.activeCount()).isEqualTo(initial.activeCount());
+        assertThat(afterDelete.archivedCount()).isZero();
+        noteService.recalculateNoteStats();
+        assertThat(noteService.getNoteStats(ADMIN_USER_ID))
+                .usingRecursiveComparison()
+                .ignoringFields("lastModifiedAt")
+                .isEqualTo(afterDelete);
+    }
+
+    @Test
+    void shouldCreateMissingNoteStatsOnFirstNoteWrite() {
+        // As for users inserted with SQL, or before the stats table existed
+        jdbcTemplate.update("delete from user_note_stats where user_id = ?", ADMIN_USER_ID);
+
+        noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "First tracked", "content"));
+
+        NoteStats created = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(created.activeCount()).isEqualTo(11);
+        assertThat(created.archivedCount()).isEqualTo(2);
+
+        noteService.archiveNote(1L, ADMIN_USER_ID);
+
+        NoteStats afterArchive = noteService.getNoteStats(ADMIN_USER_ID);
+        assertThat(afterArchive.activeCount()).isEqualTo(10);
+        assertThat(afterArchive.archivedCount()).isEqualTo(3);
+        noteService.recalculateNoteStats();
+        assertThat(noteService.getNoteStats(ADMIN_USER_ID))
+                .usingRecursiveComparison()
+                .ignoringFields("lastModifiedAt")
+                .isEqualTo(afterArchive);
+    }
+
+    @Test
+    void shouldFindUserNotesByCursor() {
+        // Notes sharing a timestamp must still be paged in a stable order, without gaps or duplicates
+        jdbcTemplate.update(
+                "update notes set created_at = (select created_at from notes where id = 20) where id between 20 and 25");
+
+        // Demo user has 21 non-archived notes, PAGE_SIZE is 10
+        CursorResult<Note> page1 = noteService.findUserNotesByCursor(REGULAR_USER_ID, null);
+        assertThat(page1.data()).hasSize(10);
+        assertThat(page1.hasNext()).isTrue();
+
+        CursorResult<Note> page2 = noteService.findUserNotesByCursor(REGULAR_USER_ID, page1.nextCursor());
+        assertThat(page2.data()).hasSize(10);
+        assertThat(page2.hasNext()).isTrue();
+
+        CursorResult<Note> page3 = noteService.findUserNotesByCursor(REGULAR_USER_ID, page2.nextCursor());
+        assertThat(page3.data()).hasSize(1);
+        assertThat(page3.hasNext()).isFalse();
+        assertThat(page3.nextCursor()).isNull();
+
+        // Keyset pages must follow the keyset order, createdAt then id, and never overlap
+        PageRequest all = PageRequest.of(0, 21, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        List<Long> expected = noteRepository.findUserNotes(REGULAR_USER_ID, false, all).stream()
+                .map(Note::getId)
+                .toList();
+        List<Long> keyset = new ArrayList<>();
+        List.of(page1, page2, page3).forEach(page -> page.data().forEach(note -> keyset.add(note.getId())));
+        assertThat(keyset).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void shouldFindUserArchivedNotesByCursor() {
+        CursorResult<Note> result = noteService.findUserArchivedNotesByCursor(ADMIN_USER_ID, null);
+
+        assertThat(result.data()).hasSize(2);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.data()).allMatch(Note::getArchived);
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> noteService.findUserNotesByCursor(REGULAR_USER_ID, "not-a-cursor"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     void shouldReturnEmptyResultForUserWithNoNotes() {
         PagedResult<Note> result = noteService.findUserNotes(NON_EXISTENT_USER_ID, 1);
@@ -109,18 +314,156 @@ class NoteServiceTests {
         assertThat(result.totalElements()).isZero();
     }
 
+    @Test
+    void shouldSearchNotesRankedWithSnippets() {
+        // "carbo" is matched as a prefix of "Carbonara"
+        PagedResult<NoteSearchHit> result = noteService.searchNotesRanked(REGULAR_USER_ID, "carbo", 1, false);
+
+        assertThat(result.data()).isNotEmpty();
+        NoteSearchHit first = result.data().getFirst();
+        assertThat(first.note().getTitle()).isEqualTo("Recipe - Pasta Carbonara");
+        assertThat(first.rank()).isPositive();
+        assertThat(result.data()).allMatch(hit -> hit.snippet() != null);
+    }
+
+    @Test
+    void shouldHighlightMatchedTermsInSnippets() {
+        PagedResult<NoteSearchHit> result = noteService.searchNotesRanked(REGULAR_USER_ID, "Spring", 1, false);
+
+        assertThat(result.data()).anyMatch(hit -> hit.snippet().contains("<mark>Spring</mark>"));
+    }
+
+    @Test
+    void shouldEscapeNoteContentInSnippets() {
+        noteService.createNote(
+                new CreateNoteCmd(REGULAR_USER_ID, "Markup", "Injected markup: 1 < 2 & \"quoted\" \uE000text"));
+
+        PagedResult<NoteSearchHit> result = noteService.searchNotesRanked(REGULAR_USER_ID, "markup", 1, false);
+
+        assertThat(result.data()).singleElement().satisfies(hit -> assertThat(hit.snippet())
+                .contains("<mark>markup</mark>", "1 &lt; 2 &amp; &quot;quoted&quot;")
+                .doesNotContain("\uE000"));
+        assertThat(NoteService.highlightSnippet("<script>\uE000x\uE001</script>"))
+                .isEqualTo("&lt;script&gt;<mark>x</mark>&lt;/script&gt;");
+    }
+
+    @Test
+    void shouldIgnoreTsQueryOperatorsInSearchInput() {
+        PagedResult<NoteSearchHit> result = noteService.searchNotesRanked(ADMIN_USER_ID, "!&|():*", 1, true);
+
+        assertThat(result.data()).isEmpty();
+        assertThat(result.totalElements()).isZero();
+    }
+
     @Test
     void shouldCreateNote() {
         CreateNoteCmd cmd = new CreateNoteCmd(ADMIN_USER_ID, "New Test Note", "Test content for new note");
 
-        noteService.createNote(cmd);
+        Note created = noteService.createNote(cmd);
 
         // Verify note was created - should now have 11 non-archived notes for admin
         PagedResult<Note> result = noteService.findUserNotes(ADMIN_USER_ID, 1);
         assertThat(result.totalElements()).isEqualTo(11);
+        assertThat(result.data()).anyMatch(note -> note.getTitle().equals("New Test Note"));
+        assertThat(noteService.getNoteById(created.getId(), ADMIN_USER_ID).getContent())
+                .isEqualTo("Test content for new note");
+    }
+
+    @Test
+    void shouldAssignIdsFromApplicationTsidGenerator() {
+        Note created = noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Id", "Content"));
+
+        // Node and stripe bits sit above the 10 counter bits, the node id is this context's
+        long nodeOfNote = (created.getId() >>> 12) & 1023;
+        assertThat(nodeOfNote).isEqualTo((tsidGenerator.nextId() >>> 12) & 1023);
+    }
+
+    @Test
+    void shouldNotLoadContentWhenListingNotes() {
+        PagedResult<Note> result = noteService.findUserNotes(ADMIN_USER_ID, 1);
+
         assertThat(result.data())
-                .anyMatch(note -> note.getTitle().equals("New Test Note")
-                        && note.getContent().equals("Test content for new note"));
+                .isNotEmpty()
+                .noneMatch(note -> Hibernate.isPropertyInitialized(note, "content"));
+        Note note = noteService.getNoteById(result.data().getFirst().getId(), ADMIN_USER_ID);
+        assertThat(Hibernate.isPropertyInitialized(note, "content")).isTrue();
+        assertThat(note.getContent()).isNotBlank();
+    }
+
+    @Test
+    void shouldReturnContentWithSliceCursorAndSearchResults() {
+        assertThat(noteService.findUserNotesSlice(ADMIN_USER_ID, 1).data())
+                .isNotEmpty()
+                .allMatch(note -> !note.getContent().isBlank());
+        assertThat(noteService.findUserNotesByCursor(ADMIN_USER_ID, null).data())
+                .isNotEmpty()
+                .allMatch(note -> !note.getContent().isBlank());
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "kubernetes", 1, false).data())
+                .singleElement()
+                .satisfies(note -> assertThat(note.getContent()).contains("Kubernetes"));
+    }
+
+    @Test
+    void shouldImportNotesInBatches() {
+        // import-batch-size is 500
+        List<ImportBatch> progress = new ArrayList<>();
+        var notes = IntStream.rangeClosed(1, 1_200)
+                .mapToObj(i -> new CreateNoteCmd(ADMIN_USER_ID, "Imported " + i, "Imported content " + i));
+
+        ImportResult result = noteService.importNotes(ADMIN_USER_ID, notes, progress::add);
+
+        assertThat(result.totalImported()).isEqualTo(1_200);
+        assertThat(result.batches()).extracting(ImportBatch::size).containsExactly(500, 500, 200);
+        assertThat(progress).extracting(ImportBatch::totalImported).containsExactly(500L, 1_000L, 1_200L);
+        assertThat(noteService.findUserNotes(ADMIN_USER_ID, 1).totalElements()).isEqualTo(1_210);
+    }
+
+    @Test
+    void shouldNotImportNotesForUnknownUser() {
+        var notes = IntStream.rangeClosed(1, 10).mapToObj(i -> new CreateNoteCmd(null, "Title " + i, "Content"));
+
+        assertThatThrownBy(() -> noteService.importNotes(NON_EXISTENT_USER_ID, notes))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void shouldExportNotesAsNdjson() {
+        var output = new ByteArrayOutputStream();
+
+        long exported = noteService.exportNotes(ADMIN_USER_ID, output, ExportFormat.NDJSON);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(exported).isEqualTo(12);
+        assertThat(lines).hasSize(12);
+        // Newest first, archived notes included
+        JsonNode first = jsonMapper.readTree(lines.getFirst());
+        assertThat(first.get("id").asLong()).isEqualTo(12L);
+        assertThat(first.get("title").asString()).isEqualTo("Quarterly Goals");
+        assertThat(first.get("archived").asBoolean()).isTrue();
+        assertThat(jsonMapper.readTree(lines.getLast()).get("id").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldExportNotesAsCsv() {
+        var output = new ByteArrayOutputStream();
+
+        long exported = noteService.exportNotes(ADMIN_USER_ID, output, ExportFormat.CSV);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(exported).isEqualTo(12);
+        assertThat(lines).hasSize(13);
+        assertThat(lines.getFirst()).isEqualTo("id,title,content,archived,createdAt,updatedAt");
+        assertThat(lines.getLast()).startsWith("1,Welcome to QuickNotes,This is your first note!");
+        // Content with commas is quoted
+        assertThat(lines.get(lines.size() - 2))
+                .startsWith("2,Project Planning,\"Key milestones for Q1: Launch new feature, Complete user testing");
+    }
+
+    @Test
+    void shouldNotExportNotesOfUnknownUser() {
+        assertThatThrownBy(() -> noteService.exportNotes(
+                        NON_EXISTENT_USER_ID, new ByteArrayOutputStream(), ExportFormat.NDJSON))
+                .isInstanceOf(ResourceNotFoundException.class);
     }
 
     @Test
@@ -163,6 +506,25 @@ class NoteServiceTests {
         UpdateNoteCmd cmd = new UpdateNoteCmd(1L, REGULAR_USER_ID, "Hacked Title", "Hacked content");
 
         assertThatThrownBy(() -> noteService.updateNote(cmd)).isInstanceOf(ResourceNotFoundException.class);
+
+        Note note = noteService.getNoteById(1L, ADMIN_USER_ID);
+        assertThat(note.getTitle()).isNotEqualTo("Hacked Title");
+    }
+
+    @Test
+    void shouldCheckNoteOwnership() {
+        assertThat(noteService.isNoteOwnedBy(1L, ADMIN_USER_ID)).isTrue();
+        assertThat(noteService.isNoteOwnedBy(1L, REGULAR_USER_ID)).isFalse();
+        assertThat(noteService.isNoteOwnedBy(999L, ADMIN_USER_ID)).isFalse();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenUpdatingMissingNote() {
+        UpdateNoteCmd cmd = new UpdateNoteCmd(999L, ADMIN_USER_ID, "Title", "Content");
+
+        assertThatThrownBy(() -> noteService.updateNote(cmd))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Note not found");
     }
 
     @Test
@@ -214,4 +576,39 @@ class NoteServiceTests {
         assertThatThrownBy(() -> noteService.unarchiveNote(11L, REGULAR_USER_ID))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
+
+    @Test
+    void shouldArchiveNotesCreatedBefore() {
+        // Admin notes 1-5 are 18 or more days old
+        int archived = noteService.archiveNotesCreatedBefore(ADMIN_USER_ID, Instant.now().minus(Duration.ofDays(17)));
+
+        assertThat(archived).isEqualTo(5);
+        assertThat(noteService.findUserNotes(ADMIN_USER_ID, 1).totalElements()).isEqualTo(5);
+        assertThat(noteService.findUserNotes(REGULAR_USER_ID, 1).totalElements()).isEqualTo(21);
+    }
+
+    @Test
+    void shouldArchiveAndUnarchiveNotesByIds() {
+        // Note 13 belongs to the demo user and must not be touched
+        int archived = noteService.archiveNotes(ADMIN_USER_ID, List.of(1L, 2L, 11L, 13L));
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(noteRepository.findById(1L).orElseThrow().getArchived()).isTrue();
+        assertThat(noteRepository.findById(13L).orElseThrow().getArchived()).isFalse();
+
+        int unarchived = noteService.unarchiveNotes(ADMIN_USER_ID, List.of(1L, 2L, 11L));
+
+        assertThat(unarchived).isEqualTo(3);
+        assertThat(noteService.findUserArchivedNotes(ADMIN_USER_ID, 1).totalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeleteArchivedNotes() {
+        int deleted = noteService.deleteArchivedNotes(ADMIN_USER_ID);
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(noteService.findUserArchivedNotes(ADMIN_USER_ID, 1).totalElements()).isZero();
+        assertThat(noteService.findUserNotes(ADMIN_USER_ID, 1).totalElements()).isEqualTo(10);
+        assertThat(noteService.findUserArchivedNotes(REGULAR_USER_ID, 1).totalElements()).isEqualTo(2);
+    }
 }
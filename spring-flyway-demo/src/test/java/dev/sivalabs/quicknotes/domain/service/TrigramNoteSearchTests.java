@@ -0,0 +1,61 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(webEnvironment = NONE, properties = "app.search.engine=trigram")
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+class TrigramNoteSearchTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    private static final Long REGULAR_USER_ID = 2L;
+
+    @Test
+    void shouldFindNotesByWordFragment() {
+        // Fragments in the middle of a word are not matched by full-text search
+        PagedResult<Note> result = noteService.searchNotes(REGULAR_USER_ID, "ARBONA", 1, false);
+
+        assertThat(result.data()).singleElement().satisfies(note -> assertThat(note.getTitle())
+                .isEqualTo("Recipe - Pasta Carbonara"));
+    }
+
+    @Test
+    void shouldSearchNotesIncludingArchived() {
+        // "Book Club Discussion" is archived
+        PagedResult<Note> excluding = noteService.searchNotes(REGULAR_USER_ID, "Atomic", 1, false);
+        PagedResult<Note> including = noteService.searchNotes(REGULAR_USER_ID, "Atomic", 1, true);
+
+        assertThat(excluding.data()).isEmpty();
+        assertThat(including.data()).anyMatch(note -> note.getTitle().contains("Book Club"));
+    }
+
+    @Test
+    void shouldTreatLikeWildcardsLiterally() {
+        // Unescaped, "pa_t" would match "Pasta"
+        PagedResult<Note> result = noteService.searchNotes(REGULAR_USER_ID, "pa_t", 1, true);
+
+        assertThat(result.data()).isEmpty();
+        assertThat(result.totalElements()).isZero();
+    }
+
+    @Test
+    void shouldSearchSummariesWithTrigramEngine() {
+        PagedResult<NoteSummary> result = noteService.searchNoteSummaries(REGULAR_USER_ID, "ARBONA", 1, false);
+
+        assertThat(result.data()).singleElement().satisfies(summary -> assertThat(summary.title())
+                .isEqualTo("Recipe - Pasta Carbonara"));
+    }
+}
@@ -0,0 +1,93 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(webEnvironment = NONE)
+@Import(TestcontainersConfig.class)
+@ActiveProfiles("virtual-threads")
+@Sql("/test-data.sql")
+class VirtualThreadTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private static final Long ADMIN_USER_ID = 1L;
+    private static final Long REGULAR_USER_ID = 2L;
+
+    @Test
+    void shouldRunAsyncTasksOnVirtualThreads() throws Exception {
+        CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+
+        taskExecutor.execute(() -> isVirtual.complete(Thread.currentThread().isVirtual()));
+
+        assertThat(isVirtual.get()).isTrue();
+    }
+
+    @Test
+    void shouldNotPinVirtualThreadsInTransactionalPaths() throws Exception {
+        // The first calls initialize classes, which may pin and is not what this test is about
+        exerciseServices(0);
+
+        List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            recording.startAsync();
+
+            // Many more concurrent callers than pooled connections, so threads park waiting for a connection
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 1; i <= 200; i++) {
+                    int request = i;
+                    futures.add(executor.submit(() -> exerciseServices(request)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            recording.stop();
+        }
+
+        assertThat(pinnedEvents).as("pinned virtual threads").isEmpty();
+    }
+
+    private void exerciseServices(int request) {
+        Long userId = request % 2 == 0 ? ADMIN_USER_ID : REGULAR_USER_ID;
+        noteService.findUserNotes(userId, 1);
+        noteService.searchNotes(userId, "note", 1, false);
+        noteService.getNoteById(request % 2 == 0 ? 1L : 13L, userId);
+        if (request % 10 == 0) {
+            noteService.createNote(new CreateNoteCmd(userId, "Note " + request, "Created on a virtual thread"));
+        }
+        userService.findByEmail("admin@gmail.com");
+    }
+}
@@ -0,0 +1,7 @@
+#!/bin/sh
+# Runs once when the primary's data directory is initialized
+set -e
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-SQL
+    create role replicator with replication login password 'replicator';
+SQL
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,77 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import static dev.sivalabs.quicknotes.benchmark.BenchmarkDatabase.randomUserId;
+
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.CursorResult;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.model.SlicedResult;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the note listings under concurrent load. The paged entity listing leaves the content
+ * unloaded and should stay close to the {@link NoteSummary} projection, which never reads more than a preview.
+ * The slice and cursor listings return the content with the notes, they show what reading the body costs.
+ * <p>
+ * For a before/after comparison run it once on a build without the lazy content (or without the
+ * hibernate-maven-plugin enhancement) and once with it, e.g.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=NoteListing -Djmh.result-file=target/listing-lazy.json}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoteListingBenchmark {
+
+    private BenchmarkDatabase database;
+    private NoteService noteService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        noteService = database.getBean(NoteService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public PagedResult<Note> findUserNotes() {
+        return noteService.findUserNotes(randomUserId(), 1);
+    }
+
+    @Benchmark
+    public SlicedResult<Note> findUserNotesSlice() {
+        return noteService.findUserNotesSlice(randomUserId(), 1);
+    }
+
+    @Benchmark
+    public CursorResult<Note> findUserNotesByCursor() {
+        return noteService.findUserNotesByCursor(randomUserId(), null);
+    }
+
+    @Benchmark
+    public PagedResult<NoteSummary> findUserNoteSummaries() {
+        return noteService.findUserNoteSummaries(randomUserId(), 1);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import static dev.sivalabs.quicknotes.benchmark.BenchmarkDatabase.randomUserId;
+
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.service.NoteService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NoteService search paths per configured search engine, for a common word and a selective phrase.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoteSearchBenchmark {
+
+    @Param({"like", "full_text", "trigram"})
+    private String engine;
+
+    private BenchmarkDatabase database;
+    private NoteService noteService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("app.search.engine=" + engine);
+        noteService = database.getBean(NoteService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public PagedResult<Note> searchCommonWord() {
+        return noteService.searchNotes(randomUserId(), "team", 1, false);
+    }
+
+    @Benchmark
+    public PagedResult<Note> searchSelectivePhrase() {
+        return noteService.searchNotes(randomUserId(), "topic 42", 1, true);
+    }
+
+    @Benchmark
+    public PagedResult<NoteSummary> searchNoteSummaries() {
+        return noteService.searchNoteSummaries(randomUserId(), "project", 1, false);
+    }
+}
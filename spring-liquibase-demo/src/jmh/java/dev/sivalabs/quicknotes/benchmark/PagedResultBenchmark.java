@@ -0,0 +1,57 @@
+package dev.sivalabs.quicknotes.benchmark;
+
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link PagedResult#map} from the regular page size up to very large pages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagedResultBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int pageSize;
+
+    private PagedResult<NoteSummary> page;
+
+    @Setup
+    public void setUp() {
+        Instant now = Instant.now();
+        List<NoteSummary> data = LongStream.range(0, pageSize)
+                .mapToObj(id -> new NoteSummary(id, "Note " + id, "Preview of note " + id, false, now, null))
+                .toList();
+        page = new PagedResult<>(data, pageSize * 10L, 1, 10, true, false, true, false);
+    }
+
+    @Benchmark
+    public PagedResult<String> mapToTitle() {
+        return page.map(NoteSummary::title);
+    }
+
+    @Benchmark
+    public PagedResult<NoteLink> mapToRecord() {
+        return page.map(summary -> new NoteLink(summary.id(), summary.title()));
+    }
+
+    public record NoteLink(Long id, String title) {}
+}
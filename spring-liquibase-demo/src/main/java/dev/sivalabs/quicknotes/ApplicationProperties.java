@@ -0,0 +1,94 @@
+package dev.sivalabs.quicknotes;
+
+import dev.sivalabs.quicknotes.domain.model.MigrationMode;
+import dev.sivalabs.quicknotes.domain.model.SearchEngine;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "app")
+public record ApplicationProperties(
+        @DefaultValue Notes notes,
+        @DefaultValue Search search,
+        @DefaultValue IdGeneratorSettings idGenerator,
+        @DefaultValue QueryProfiling queryProfiling,
+        @DefaultValue Migrations migrations,
+        @DefaultValue ReadReplicas readReplicas) {
+
+    public record Notes(
+            @DefaultValue("500") int importBatchSize,
+            @DefaultValue Partitioning partitioning,
+            @DefaultValue ContentCompression contentCompression) {}
+
+    /**
+     * @param enabled           maintain the archive partitions of notes, requires the partitioned migrations
+     * @param monthsAhead       months of archive partitions to create ahead of the current month
+     * @param detachAfterMonths detach archive partitions older than this many months, 0 keeps all of them
+     * @param cron              schedule of the maintenance job
+     */
+    public record Partitioning(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("3") int monthsAhead,
+            @DefaultValue("0") int detachAfterMonths,
+            @DefaultValue("0 0 3 * * *") String cron) {}
+
+    /**
+     * @param backfillEnabled   rewrite existing pglz compressed content with lz4 on startup
+     * @param backfillBatchSize notes scanned per backfill transaction
+     * @param backfillPause     pause between backfill batches, to limit the load on the database
+     */
+    public record ContentCompression(
+            @DefaultValue("false") boolean backfillEnabled,
+            @DefaultValue("1000") int backfillBatchSize,
+            @DefaultValue("100ms") Duration backfillPause) {}
+
+    public record Search(@DefaultValue("LIKE") SearchEngine engine, @DefaultValue InMemorySearch inMemory) {}
+
+    public record InMemorySearch(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("64MB") DataSize maxSize,
+            @DefaultValue("50000") int maxNotesPerUser) {}
+
+    /**
+     * @param nodeId   unique id of this instance; when unset, TSID_NODE or a random node id is used
+     * @param nodeBits bits of the TSID reserved for the node id
+     * @param stripes  independent counters per instance, a power of two
+     */
+    public record IdGeneratorSettings(
+            Integer nodeId, @DefaultValue("10") int nodeBits, @DefaultValue("4") int stripes) {}
+
+    /**
+     * @param enabled             wrap the DataSource to time statements and detect N+1 selects
+     * @param slowQueryThreshold  statements taking at least this long are logged
+     * @param nPlusOneThreshold   executions of the same select within one transaction that are reported as N+1
+     */
+    public record QueryProfiling(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("200ms") Duration slowQueryThreshold,
+            @DefaultValue("10") int nPlusOneThreshold) {}
+
+    /**
+     * @param mode when to run Flyway or Liquibase on startup, see {@link MigrationMode}
+     */
+    public record Migrations(@DefaultValue("ALWAYS") MigrationMode mode) {}
+
+    /**
+     * @param enabled              send read-only transactions to the replicas
+     * @param nodes                replica connections, username and password default to the primary's
+     * @param maxLag               replicas further behind the primary are skipped until they catch up
+     * @param healthCheckInterval  how often health and lag of the replicas are checked
+     * @param readYourWritesWindow reads of a user go to the primary for this long after the user's last write
+     * @param maximumPoolSize      connections per replica pool
+     */
+    public record ReadReplicas(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue List<Replica> nodes,
+            @DefaultValue("5s") Duration maxLag,
+            @DefaultValue("5s") Duration healthCheckInterval,
+            @DefaultValue("5s") Duration readYourWritesWindow,
+            @DefaultValue("10") int maximumPoolSize) {}
+
+    public record Replica(String url, String username, String password) {}
+}
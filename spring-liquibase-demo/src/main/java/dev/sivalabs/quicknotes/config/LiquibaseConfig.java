@@ -0,0 +1,91 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.domain.model.MigrationMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+class LiquibaseConfig {
+
+    // Static, and bound straight from the Environment, because it has to be in place before SpringLiquibase
+    // is initialized, which is when Liquibase runs
+    @Bean
+    static SchemaFingerprintPostProcessor schemaFingerprintPostProcessor(
+            Environment environment, ObjectProvider<MigrationTimings> timings) {
+        MigrationMode mode = Binder.get(environment)
+                .bind("app.migrations.mode", MigrationMode.class)
+                .orElse(MigrationMode.ALWAYS);
+        return new SchemaFingerprintPostProcessor(mode, timings);
+    }
+
+    /**
+     * Skips Liquibase when the fingerprint of the changelog matches the stored one, in skip-if-current mode,
+     * and records the fingerprint once Liquibase has updated the database.
+     */
+    static class SchemaFingerprintPostProcessor implements BeanPostProcessor {
+        private static final Logger log = LoggerFactory.getLogger(SchemaFingerprintPostProcessor.class);
+
+        private final MigrationMode mode;
+        private final ObjectProvider<MigrationTimings> timings;
+        private final Map<String, PendingMigration> pending = new ConcurrentHashMap<>();
+
+        SchemaFingerprintPostProcessor(MigrationMode mode, ObjectProvider<MigrationTimings> timings) {
+            this.mode = mode;
+            this.timings = timings;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof SpringLiquibase liquibase) {
+                MigrationTimings migrationTimings = timings.getObject();
+                SchemaFingerprint fingerprint = migrationTimings.time("fingerprint", () -> fingerprint(liquibase));
+                if (mode == MigrationMode.SKIP_IF_CURRENT
+                        && migrationTimings.time(
+                                "fingerprint", () -> fingerprint.isCurrent(liquibase.getDataSource()))) {
+                    log.info("Schema fingerprint {} is current, skipping Liquibase", fingerprint.value());
+                    liquibase.setShouldRun(false);
+                } else {
+                    pending.put(beanName, new PendingMigration(fingerprint, System.nanoTime()));
+                }
+            }
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            PendingMigration migration = bean instanceof SpringLiquibase ? pending.remove(beanName) : null;
+            if (migration != null) {
+                SpringLiquibase liquibase = (SpringLiquibase) bean;
+                MigrationTimings migrationTimings = timings.getObject();
+                migrationTimings.record("migrate", Duration.ofNanos(System.nanoTime() - migration.startNanos()));
+                migrationTimings.time("record", () -> migration.fingerprint().record(liquibase.getDataSource()));
+            }
+            return bean;
+        }
+
+        private static SchemaFingerprint fingerprint(SpringLiquibase liquibase) {
+            // Every file next to and below the master changelog
+            String changeLog = liquibase.getChangeLog();
+            String directory = changeLog.substring(0, changeLog.lastIndexOf('/') + 1);
+            return SchemaFingerprint.compute(
+                    "liquibase",
+                    List.of(directory + "**/*"),
+                    changeLog,
+                    liquibase.getContexts(),
+                    liquibase.getLabelFilter());
+        }
+
+        private record PendingMigration(SchemaFingerprint fingerprint, long startNanos) {}
+    }
+}
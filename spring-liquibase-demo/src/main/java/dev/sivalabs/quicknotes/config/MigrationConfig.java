@@ -0,0 +1,35 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.model.MigrationMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+@Configuration
+class MigrationConfig {
+    private static final Logger log = LoggerFactory.getLogger(MigrationConfig.class);
+
+    private final ApplicationProperties properties;
+
+    MigrationConfig(ApplicationProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    MigrationTimings migrationTimings() {
+        return new MigrationTimings();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void exitAfterMigrateOnly(ApplicationReadyEvent event) {
+        if (properties.migrations().mode() == MigrationMode.MIGRATE_ONLY) {
+            log.info("Migrations applied, exiting (app.migrations.mode=migrate-only)");
+            SpringApplication.exit(event.getApplicationContext());
+        }
+    }
+}
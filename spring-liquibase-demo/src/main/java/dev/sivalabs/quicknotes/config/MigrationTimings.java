@@ -0,0 +1,57 @@
+package dev.sivalabs.quicknotes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durations of the startup migration phases: fingerprint (compute and compare), migrate and record.
+ * Migrations run before the MeterRegistry is bound, so the durations are kept and
+ * recorded into the quicknotes.migration timer once it is.
+ */
+class MigrationTimings implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(MigrationTimings.class);
+    static final String MIGRATION_METRIC = "quicknotes.migration";
+
+    private final Map<String, Duration> phases = new LinkedHashMap<>();
+
+    <T> T time(String phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    synchronized void record(String phase, Duration duration) {
+        phases.merge(phase, duration, Duration::plus);
+        log.info("Migration phase {} took {} ms", phase, duration.toMillis());
+    }
+
+    synchronized Map<String, Duration> phases() {
+        return Map.copyOf(phases);
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        phases.forEach((phase, duration) -> Timer.builder(MIGRATION_METRIC)
+                .description("Duration of the startup migration phases")
+                .tag("phase", phase)
+                .register(registry)
+                .record(duration));
+    }
+}
@@ -0,0 +1,126 @@
+package dev.sivalabs.quicknotes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes read-only transactions to read replicas,
+ * see {@link ReadReplicaRouter}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+class ReadReplicaConfig {
+
+    @Bean
+    ReadReplicaRouter readReplicaRouter(
+            ApplicationProperties properties,
+            ObjectProvider<JdbcConnectionDetails> connectionDetails,
+            DataSourceProperties dataSourceProperties,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            Environment environment) {
+        ApplicationProperties.ReadReplicas settings = properties.readReplicas();
+        // Docker Compose and Testcontainers provide connection details, without them spring.datasource.* applies
+        JdbcConnectionDetails details =
+                connectionDetails.getIfAvailable(() -> propertiesConnectionDetails(dataSourceProperties));
+        HikariDataSource primary = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(details.getDriverClassName())
+                .url(details.getJdbcUrl())
+                .username(details.getUsername())
+                .password(details.getPassword())
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (ApplicationProperties.Replica replica : settings.nodes()) {
+            replicaPools.add(replicaPool("replica-" + (replicaPools.size() + 1), replica, details, settings));
+        }
+        // The pools are not DataSource beans, so Spring Boot neither binds their metrics nor checks their health.
+        // The tracker has to be set before a pool starts.
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicaPools.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        });
+        return new ReadReplicaRouter(primary, replicaPools, settings.maxLag(), settings.readYourWritesWindow());
+    }
+
+    @Bean
+    HealthIndicator readReplicasHealthIndicator(ReadReplicaRouter router) {
+        return router::health;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReadReplicaRouter router) {
+        return router.dataSource();
+    }
+
+    @Bean
+    ReadYourWritesAspect readYourWritesAspect() {
+        return new ReadYourWritesAspect();
+    }
+
+    private static HikariDataSource replicaPool(
+            String name,
+            ApplicationProperties.Replica replica,
+            JdbcConnectionDetails primary,
+            ApplicationProperties.ReadReplicas settings) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(replica.url());
+        pool.setUsername(replica.username() != null ? replica.username() : primary.getUsername());
+        pool.setPassword(replica.password() != null ? replica.password() : primary.getPassword());
+        pool.setReadOnly(true);
+        pool.setMaximumPoolSize(settings.maximumPoolSize());
+        // A replica that went down must not hold up reads for long before they fall back to the primary,
+        // and must not fail the startup
+        pool.setConnectionTimeout(1000);
+        pool.setInitializationFailTimeout(-1);
+        pool.addDataSourceProperty("ApplicationName", name);
+        return pool;
+    }
+
+    private static JdbcConnectionDetails propertiesConnectionDetails(DataSourceProperties properties) {
+        return new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return properties.determineUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return properties.determinePassword();
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return properties.determineUrl();
+            }
+
+            @Override
+            public String getDriverClassName() {
+                return properties.determineDriverClassName();
+            }
+        };
+    }
+}
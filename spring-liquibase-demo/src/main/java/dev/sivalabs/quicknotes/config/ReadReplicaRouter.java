@@ -0,0 +1,285 @@
+package dev.sivalabs.quicknotes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Sends read-only transactions to the replica pools and everything else to the primary.
+ * <p>
+ * The application DataSource is a {@link LazyConnectionDataSourceProxy}. It fetches the physical connection on the
+ * first statement, after the transaction manager marked the connection read-only, so
+ * {@code @Transactional(readOnly = true)} decides where a transaction goes. Read-only connections come round robin
+ * from the replicas that passed the last health check and are at most {@code maxLag} behind, and from the primary
+ * when there is no such replica or the current user wrote within the read-your-writes window.
+ * <p>
+ * The current user is set by {@link ReadYourWritesAspect}. Every read-write connection taken for a user counts as
+ * a write, and writes are only known to this instance.
+ */
+final class ReadReplicaRouter implements MeterBinder, InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+    static final String ROUTING_METRIC = "quicknotes.db.routing";
+    static final String LAG_METRIC = "quicknotes.db.replica.lag";
+    static final String HEALTHY_METRIC = "quicknotes.db.replica.healthy";
+
+    // Whether the node receives WAL, and its lag in milliseconds. A replica whose WAL receiver is gone or not
+    // streaming stopped following the primary, however little it has left to replay. The receiver's status needs
+    // pg_read_all_stats, without it a running receiver counts as streaming. A replica that replayed all WAL it
+    // received has no lag, even when the last replayed transaction is old because the primary is idle.
+    // A node that is not in recovery is not behind anything.
+    private static final String LAG_QUERY = """
+            select not pg_is_in_recovery()
+                       or exists (select 1 from pg_stat_wal_receiver where coalesce(status, 'streaming') = 'streaming'),
+                   case
+                       when not pg_is_in_recovery() then 0
+                       when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                       else coalesce((extract(epoch from clock_timestamp() - pg_last_xact_replay_timestamp())
+                                      * 1000)::bigint, 86400000)
+                   end
+            """;
+
+    private static final ThreadLocal<Long> currentUser = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long readYourWritesWindowNanos;
+    private final Map<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LazyConnectionDataSourceProxy dataSource;
+    private volatile MeterRegistry meterRegistry;
+
+    ReadReplicaRouter(
+            HikariDataSource primary,
+            List<HikariDataSource> replicaPools,
+            Duration maxLag,
+            Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.dataSource = new LazyConnectionDataSourceProxy(new WriteTrackingDataSource());
+        this.dataSource.setReadOnlyDataSource(new ReplicaDataSource());
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * Sets the user whose reads and writes run on the current thread and returns the previous one, to be restored
+     * with another call.
+     */
+    static Long setCurrentUser(Long userId) {
+        Long previous = currentUser.get();
+        if (userId == null) {
+            currentUser.remove();
+        } else {
+            currentUser.set(userId);
+        }
+        return previous;
+    }
+
+    boolean isInReadYourWritesWindow(Long userId) {
+        Long writtenAt = lastWriteNanos.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt < readYourWritesWindowNanos;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checkHealth();
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval:5s}")
+    void checkHealth() {
+        replicas.forEach(Replica::check);
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= readYourWritesWindowNanos);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        for (Replica replica : replicas) {
+            Gauge.builder(LAG_METRIC, replica, r -> r.lagMillis / 1000.0)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder(HEALTHY_METRIC, replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Health of the primary pool, with the last health check of every replica. Replicas that are down only make
+     * reads fall back to the primary, they don't make the application unhealthy.
+     */
+    Health health() {
+        Health.Builder builder;
+        try (Connection connection = primary.getConnection()) {
+            builder = connection.isValid(1) ? Health.up() : Health.down();
+        } catch (SQLException e) {
+            builder = Health.down(e);
+        }
+        builder.withDetail(primary.getPoolName(), Map.of("role", "primary"));
+        for (Replica replica : replicas) {
+            builder.withDetail(
+                    replica.name(),
+                    Map.of("role", "replica", "healthy", replica.healthy, "lagMillis", replica.lagMillis));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private Connection readOnlyConnection() throws SQLException {
+        Long userId = currentUser.get();
+        if (userId != null && isInReadYourWritesWindow(userId)) {
+            return primaryConnection("read-your-writes");
+        }
+        int size = replicas.size();
+        int start = size > 0 ? Math.floorMod(nextReplica.getAndIncrement(), size) : 0;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.isUsable(maxLagMillis)) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                count(replica.name(), "read-only");
+                return connection;
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+        return primaryConnection("no-replica-available");
+    }
+
+    private Connection primaryConnection(String reason) throws SQLException {
+        count("primary", reason);
+        return primary.getConnection();
+    }
+
+    private void count(String target, String reason) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registry.counter(ROUTING_METRIC, "target", target, "reason", reason).increment();
+        }
+    }
+
+    /** Target of read-write connections, starts the read-your-writes window of the current user. */
+    private class WriteTrackingDataSource extends DelegatingDataSource {
+
+        WriteTrackingDataSource() {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Long userId = currentUser.get();
+            if (userId != null) {
+                lastWriteNanos.put(userId, System.nanoTime());
+            }
+            return super.getConnection();
+        }
+    }
+
+    private class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readOnlyConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return readOnlyConnection();
+        }
+    }
+
+    static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        String name() {
+            return pool.getPoolName();
+        }
+
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        Duration lag() {
+            return Duration.ofMillis(lagMillis);
+        }
+
+        boolean isUsable(long maxLagMillis) {
+            return healthy && lagMillis <= maxLagMillis;
+        }
+
+        void check() {
+            try (Connection connection = pool.getConnection();
+                    Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                boolean streaming = rs.getBoolean(1);
+                if (!streaming && healthy) {
+                    log.warn("Replica {} does not stream WAL from the primary, reading from the primary", name());
+                }
+                update(streaming, Duration.ofMillis(rs.getLong(2)));
+            } catch (SQLException e) {
+                markDown(e);
+            }
+        }
+
+        void update(boolean healthy, Duration lag) {
+            if (healthy && !this.healthy) {
+                log.info("Replica {} is available, {} ms behind the primary", name(), lag.toMillis());
+            }
+            this.lagMillis = lag.toMillis();
+            this.healthy = healthy;
+        }
+
+        void markDown(SQLException e) {
+            if (healthy) {
+                log.warn("Replica {} is unavailable, reading from the primary: {}", name(), e.getMessage());
+            }
+            healthy = false;
+        }
+    }
+}
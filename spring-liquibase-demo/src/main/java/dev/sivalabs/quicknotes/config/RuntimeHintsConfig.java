@@ -0,0 +1,85 @@
+package dev.sivalabs.quicknotes.config;
+
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.entity.TsidListener;
+import dev.sivalabs.quicknotes.domain.model.NoteExport;
+import dev.sivalabs.quicknotes.domain.model.NoteStats;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.repo.NoteFootprint;
+import dev.sivalabs.quicknotes.domain.repo.NoteSearchMatch;
+import dev.sivalabs.quicknotes.domain.repo.NoteTotals;
+import dev.sivalabs.quicknotes.domain.repo.NoteVector;
+import dev.sivalabs.quicknotes.domain.repo.VersionedTsQuery;
+import dev.sivalabs.quicknotes.migration.BatchedBackfillChange;
+import dev.sivalabs.quicknotes.migration.CreateIndexConcurrentlyChange;
+import dev.sivalabs.quicknotes.migration.LockTimeoutSqlChange;
+import dev.sivalabs.quicknotes.migration.PartitionNotesChange;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.projection.TargetAware;
+
+/**
+ * Reflection, proxy and resource hints for a native image. Entities are registered by Spring's JPA AOT
+ * processing from the scanned managed types; they need to be bytecode enhanced at build time, which the
+ * hibernate-maven-plugin already does.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.QuickNotesRuntimeHints.class)
+class RuntimeHintsConfig {
+
+    static class QuickNotesRuntimeHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // The entity listener is created by the bean container and its @PrePersist is invoked reflectively
+            hints.reflection()
+                    .registerType(
+                            TsidListener.class,
+                            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                            MemberCategory.INVOKE_DECLARED_METHODS);
+            // Constructor expressions of the repository queries
+            hints.reflection()
+                    .registerType(Note.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                    .registerType(NoteSummary.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                    .registerType(NoteExport.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                    .registerType(NoteStats.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            // Interface projections of the repository queries are backed by JDK proxies
+            for (Class<?> projection : new Class<?>[] {
+                NoteVector.class, NoteSearchMatch.class, NoteFootprint.class, NoteTotals.class, VersionedTsQuery.class
+            }) {
+                hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(projection, TargetAware.class));
+            }
+            // JDBC objects handed out by the query profiling DataSource proxy, which leaves ResultSets alone
+            for (Class<?> jdbcType : new Class<?>[] {
+                Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class
+            }) {
+                hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType);
+            }
+            // Caffeine JCache configuration of the second-level cache regions
+            hints.resources().registerPattern("application.conf");
+            // Spring Boot only registers the master changelog directory, the changesets live below it
+            hints.resources().registerPattern("db/changelog/migrations/*.xml");
+            // Custom changes are instantiated and configured by Liquibase through reflection
+            for (Class<?> change : new Class<?>[] {
+                CreateIndexConcurrentlyChange.class,
+                LockTimeoutSqlChange.class,
+                BatchedBackfillChange.class,
+                PartitionNotesChange.class
+            }) {
+                hints.reflection()
+                        .registerType(
+                                change,
+                                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                                MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package dev.sivalabs.quicknotes.domain.entity;
 
-import dev.sivalabs.quicknotes.domain.utils.IdGenerator;
 import jakarta.persistence.*;
 import java.time.Instant;
 import org.springframework.data.annotation.CreatedDate;
@@ -8,7 +7,7 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, TsidListener.class})
 public abstract class BaseEntity {
 
     @Id
@@ -22,13 +21,6 @@ public abstract class BaseEntity {
     @LastModifiedDate
     protected Instant updatedAt;
 
-    @PrePersist
-    void prePersist() {
-        if (this.id == null) {
-            this.id = IdGenerator.generateLong();
-        }
-    }
-
     public Long getId() {
         return id;
     }
@@ -1,14 +1,21 @@
 package dev.sivalabs.quicknotes.domain.entity;
 
 import jakarta.persistence.*;
+import java.time.Instant;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "notes")
 @Table(name = "notes")
 public class Note extends BaseEntity {
 
     @Column(nullable = false)
     private String title;
 
+    // Loaded on first access (needs the build time bytecode enhancement), so listings only read the small columns
+    @Basic(fetch = FetchType.LAZY)
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
@@ -21,6 +28,27 @@ public class Note extends BaseEntity {
 
     public Note() {}
 
+    /**
+     * For queries that return notes together with their content, selected with {@code new Note(...)}.
+     * The content can still be read after the session is closed; such notes are not managed.
+     */
+    public Note(
+            Long id,
+            String title,
+            String content,
+            User user,
+            Boolean archived,
+            Instant createdAt,
+            Instant updatedAt) {
+        setId(id);
+        this.title = title;
+        this.content = content;
+        this.user = user;
+        this.archived = archived;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public String getTitle() {
         return title;
     }
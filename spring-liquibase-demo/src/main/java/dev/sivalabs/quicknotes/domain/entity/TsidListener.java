@@ -0,0 +1,24 @@
+package dev.sivalabs.quicknotes.domain.entity;
+
+import dev.sivalabs.quicknotes.domain.utils.TsidGenerator;
+import jakarta.persistence.PrePersist;
+
+/**
+ * Assigns a TSID to new entities that have no id yet. Hibernate creates the listener through Spring's bean
+ * container, so it uses the {@link TsidGenerator} bean of the application context that owns the
+ * EntityManagerFactory; that bean is the only source of ids.
+ */
+public class TsidListener {
+    private final TsidGenerator tsidGenerator;
+
+    public TsidListener(TsidGenerator tsidGenerator) {
+        this.tsidGenerator = tsidGenerator;
+    }
+
+    @PrePersist
+    void assignId(BaseEntity entity) {
+        if (entity.getId() == null) {
+            entity.setId(tsidGenerator.nextId());
+        }
+    }
+}
@@ -2,8 +2,12 @@ package dev.sivalabs.quicknotes.domain.entity;
 
 import dev.sivalabs.quicknotes.domain.model.Role;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Table(name = "users")
 public class User extends BaseEntity {
 
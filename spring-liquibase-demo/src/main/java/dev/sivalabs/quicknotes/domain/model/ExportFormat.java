@@ -0,0 +1,8 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+public enum ExportFormat {
+    /** One JSON object per line. */
+    NDJSON,
+    /** RFC 4180 CSV with a header row. */
+    CSV
+}
@@ -0,0 +1,9 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Instant;
+
+/**
+ * Exported view of a note, read as a projection so exported rows never become managed entities.
+ */
+public record NoteExport(
+        Long id, String title, String content, Boolean archived, Instant createdAt, Instant updatedAt) {}
@@ -0,0 +1,10 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+import java.time.Instant;
+
+/**
+ * Listing view of a note. The preview holds at most the first 200 characters of the content,
+ * truncated by the database so the full content never leaves it.
+ */
+public record NoteSummary(
+        Long id, String title, String preview, Boolean archived, Instant createdAt, Instant updatedAt) {}
@@ -0,0 +1,10 @@
+package dev.sivalabs.quicknotes.domain.model;
+
+public enum SearchEngine {
+    /** Case-insensitive substring match on title and content. */
+    LIKE,
+    /** PostgreSQL full-text search over the indexed notes.search_vector column. */
+    FULL_TEXT,
+    /** Case-insensitive substring match served by the pg_trgm indexes on title and content. */
+    TRIGRAM
+}
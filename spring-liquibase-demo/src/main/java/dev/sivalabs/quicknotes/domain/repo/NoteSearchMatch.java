@@ -0,0 +1,9 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+public interface NoteSearchMatch {
+    Long getId();
+
+    Double getRank();
+
+    String getSnippet();
+}
@@ -0,0 +1,16 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+/**
+ * A note as the in-memory search index holds it.
+ */
+public interface NoteVector {
+    Long getId();
+
+    Boolean getArchived();
+
+    // Microseconds since the epoch, orders equally ranked notes
+    Long getCreatedAt();
+
+    // search_vector in its text form, e.g. 'boot':2A,7B 'spring':1A
+    String getSearchVector();
+}
@@ -0,0 +1,122 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+import dev.sivalabs.quicknotes.domain.entity.UserNoteStats;
+import dev.sivalabs.quicknotes.domain.model.NoteStats;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface UserNoteStatsRepository extends JpaRepository<UserNoteStats, Long> {
+
+    @Query("""
+        select new dev.sivalabs.quicknotes.domain.model.NoteStats(
+            s.activeCount, s.archivedCount, s.contentBytes, s.lastModifiedAt)
+        from UserNoteStats s
+        where s.userId = :userId
+        """)
+    Optional<NoteStats> findStats(@Param("userId") Long userId);
+
+    /**
+     * Adds the deltas to the user's counters and returns the new version of the row, empty when the user has
+     * no stats row. A query rather than a modifying statement, so that it can return the version.
+     */
+    @Query(
+            value = """
+                update user_note_stats
+                set active_count = active_count + :activeDelta,
+                    archived_count = archived_count + :archivedDelta,
+                    content_bytes = content_bytes + :contentBytesDelta,
+                    last_modified_at = :now,
+                    version = version + 1
+                where user_id = :userId
+                returning version
+                """,
+            nativeQuery = true)
+    Optional<Long> applyDelta(
+            @Param("userId") Long userId,
+            @Param("activeDelta") long activeDelta,
+            @Param("archivedDelta") long archivedDelta,
+            @Param("contentBytesDelta") long contentBytesDelta,
+            @Param("now") Instant now);
+
+    /**
+     * Creates the missing stats row of a user from a count of the user's notes, which includes the current write
+     * once it is flushed, and returns its version. When a concurrent write created the row first, adds the deltas
+     * to it instead, like {@link #applyDelta}. The query space keeps Hibernate from clearing the second-level cache.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_note_stats"))
+    @Query(
+            value = """
+                insert into user_note_stats (user_id, active_count, archived_count, content_bytes, last_modified_at)
+                select :userId,
+                       count(*) filter (where not archived),
+                       count(*) filter (where archived),
+                       coalesce(sum(octet_length(content)), 0),
+                       :now
+                from notes
+                where user_id = :userId
+                on conflict (user_id) do update set
+                    active_count = user_note_stats.active_count + :activeDelta,
+                    archived_count = user_note_stats.archived_count + :archivedDelta,
+                    content_bytes = user_note_stats.content_bytes + :contentBytesDelta,
+                    last_modified_at = :now,
+                    version = user_note_stats.version + 1
+                returning version
+                """,
+            nativeQuery = true)
+    long createFromNotesOrApplyDelta(
+            @Param("userId") Long userId,
+            @Param("activeDelta") long activeDelta,
+            @Param("archivedDelta") long archivedDelta,
+            @Param("contentBytesDelta") long contentBytesDelta,
+            @Param("now") Instant now);
+
+    @Query("select s.version from UserNoteStats s where s.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    /**
+     * The user's stats version together with the query as PostgreSQL normalizes it, stemmed and without
+     * stop words, in one round trip. Empty when the user has no stats row.
+     */
+    @Query(
+            value = """
+                select s.version AS version, cast(to_tsquery('english', :tsQuery) AS text) AS "tsQuery"
+                from user_note_stats s
+                where s.user_id = :userId
+                """,
+            nativeQuery = true)
+    Optional<VersionedTsQuery> findVersionedTsQuery(@Param("userId") Long userId, @Param("tsQuery") String tsQuery);
+
+    /**
+     * Recounts the stats of every user from the notes table, for notes that were written around NoteService,
+     * e.g. loaded with SQL. The query space keeps Hibernate from clearing the second-level cache.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_note_stats"))
+    @Query(
+            value = """
+                insert into user_note_stats (user_id, active_count, archived_count, content_bytes, last_modified_at)
+                select u.id,
+                       count(n.id) filter (where not n.archived),
+                       count(n.id) filter (where n.archived),
+                       coalesce(sum(octet_length(n.content)), 0),
+                       max(coalesce(n.updated_at, n.created_at))
+                from users u
+                left join notes n on n.user_id = u.id
+                group by u.id
+                on conflict (user_id) do update set
+                    active_count = excluded.active_count,
+                    archived_count = excluded.archived_count,
+                    content_bytes = excluded.content_bytes,
+                    last_modified_at = excluded.last_modified_at,
+                    version = user_note_stats.version + 1
+                """,
+            nativeQuery = true)
+    int recalculateAll();
+}
@@ -0,0 +1,11 @@
+package dev.sivalabs.quicknotes.domain.repo;
+
+/**
+ * A user's note stats version with a full-text query normalized by PostgreSQL, for the in-memory search index.
+ */
+public interface VersionedTsQuery {
+    Long getVersion();
+
+    // to_tsquery('english', ...) in its text form, e.g. 'run':* & 'spring':*
+    String getTsQuery();
+}
@@ -0,0 +1,142 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The search_vector of a note: its lexemes in tsvector order, each with its positions and weights.
+ * Positions are packed like PostgreSQL's WordEntryPos, the weight in the two high bits (A = 3 .. D = 0).
+ * The archived flag is guarded by the owning index.
+ */
+final class IndexedNote {
+    private static final char[] NO_POSITIONS = new char[0];
+
+    private final long id;
+    private final long createdAt;
+    private final String[] lexemes;
+    private final char[][] positions;
+    private boolean archived;
+
+    IndexedNote(long id, boolean archived, long createdAt, String[] lexemes, char[][] positions) {
+        this.id = id;
+        this.archived = archived;
+        this.createdAt = createdAt;
+        this.lexemes = lexemes;
+        this.positions = positions;
+    }
+
+    /**
+     * Reads the text form of a tsvector, e.g. {@code 'boot':2A,7B 'spring':1A}.
+     */
+    static IndexedNote parse(long id, boolean archived, long createdAt, String searchVector) {
+        List<String> lexemes = new ArrayList<>();
+        List<char[]> positions = new ArrayList<>();
+        String s = searchVector == null ? "" : searchVector;
+        int i = 0;
+        while (i < s.length()) {
+            if (s.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+            if (s.charAt(i) != '\'') {
+                throw new IllegalArgumentException("Not a tsvector: " + s);
+            }
+            // Quotes and backslashes in a lexeme are doubled
+            StringBuilder lexeme = new StringBuilder();
+            i++;
+            while (true) {
+                if (i >= s.length()) {
+                    throw new IllegalArgumentException("Not a tsvector: " + s);
+                }
+                char c = s.charAt(i++);
+                if (c == '\'' && (i >= s.length() || s.charAt(i) != '\'')) {
+                    break;
+                }
+                if (c == '\'' || c == '\\') {
+                    c = s.charAt(i++);
+                }
+                lexeme.append(c);
+            }
+            char[] lexemePositions = NO_POSITIONS;
+            if (i < s.length() && s.charAt(i) == ':') {
+                lexemePositions = new char[4];
+                int count = 0;
+                do {
+                    i++;
+                    int position = 0;
+                    while (i < s.length() && Character.isDigit(s.charAt(i))) {
+                        position = position * 10 + (s.charAt(i++) - '0');
+                    }
+                    int weight = 0;
+                    if (i < s.length() && s.charAt(i) >= 'A' && s.charAt(i) <= 'D') {
+                        weight = 'D' - s.charAt(i++);
+                    }
+                    if (count == lexemePositions.length) {
+                        lexemePositions = Arrays.copyOf(lexemePositions, count * 2);
+                    }
+                    lexemePositions[count++] = (char) (weight << 14 | position);
+                } while (i < s.length() && s.charAt(i) == ',');
+                lexemePositions = Arrays.copyOf(lexemePositions, count);
+            }
+            lexemes.add(lexeme.toString());
+            positions.add(lexemePositions);
+        }
+        return new IndexedNote(
+                id, archived, createdAt, lexemes.toArray(String[]::new), positions.toArray(char[][]::new));
+    }
+
+    long id() {
+        return id;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    boolean archived() {
+        return archived;
+    }
+
+    void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    String[] lexemes() {
+        return lexemes;
+    }
+
+    int size() {
+        return lexemes.length;
+    }
+
+    char[] positions(int entry) {
+        return positions[entry];
+    }
+
+    /**
+     * Index of the first lexeme starting with the prefix, or -1.
+     */
+    int firstWithPrefix(String prefix) {
+        int low = 0;
+        int high = lexemes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (TextRank.compareLexemes(lexemes[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < lexemes.length && lexemes[low].startsWith(prefix) ? low : -1;
+    }
+
+    long estimatedBytes() {
+        // Object headers, the two arrays, and per lexeme a String and a positions array
+        long bytes = 64 + 8L * lexemes.length;
+        for (int i = 0; i < lexemes.length; i++) {
+            bytes += 56 + lexemes[i].length() + 16 + 2L * positions[i].length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,107 @@
+package dev.sivalabs.quicknotes.domain.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of primitive note ids. Not thread-safe, callers synchronize on the owning index.
+ */
+final class LongPostingList {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] ids = EMPTY;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    boolean add(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        if (size == 0) {
+            ids = EMPTY;
+        } else if (size < ids.length >> 2) {
+            ids = Arrays.copyOf(ids, size << 1);
+        }
+        return true;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Adds all ids of this list to the given sorted array, returning a new sorted array without duplicates.
+     */
+    long[] unionWith(long[] other) {
+        long[] result = new long[size + other.length];
+        int i = 0, j = 0, k = 0;
+        while (i < size && j < other.length) {
+            long a = ids[i], b = other[j];
+            if (a == b) {
+                result[k++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                result[k++] = ids[i++];
+            } else {
+                result[k++] = other[j++];
+            }
+        }
+        while (i < size) {
+            result[k++] = ids[i++];
+        }
+        while (j < other.length) {
+            result[k++] = other[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                result[k++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+}
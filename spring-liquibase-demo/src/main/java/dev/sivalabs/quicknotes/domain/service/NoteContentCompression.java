@@ -0,0 +1,111 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import dev.sivalabs.quicknotes.ApplicationProperties;
+import dev.sivalabs.quicknotes.domain.model.CompressionBackfillResult;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rewrites note content still compressed with pglz. The migrations switch the content column to lz4, which
+ * compresses and decompresses several times faster than PostgreSQL's default pglz at a similar ratio, but only for
+ * content written from then on.
+ * <p>
+ * The backfill walks notes in id order with one short transaction per batch, so it can run next to regular traffic
+ * and be interrupted at any point. Content is rewritten as {@code content || ''}: an unchanged value would keep its
+ * existing compressed datum.
+ */
+@Component
+public class NoteContentCompression {
+    private static final Logger log = LoggerFactory.getLogger(NoteContentCompression.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final ApplicationProperties.ContentCompression settings;
+
+    NoteContentCompression(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            ApplicationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.settings = properties.notes().contentCompression();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void runOnStartup() {
+        if (settings.backfillEnabled()) {
+            taskExecutor.execute(this::backfill);
+        }
+    }
+
+    public boolean isLz4Enabled() {
+        String compression = jdbcTemplate.queryForObject("""
+                select attcompression::text from pg_attribute
+                where attrelid = 'notes'::regclass and attname = 'content'
+                """, String.class);
+        return "l".equals(compression);
+    }
+
+    public CompressionBackfillResult backfill() {
+        long start = System.nanoTime();
+        if (!isLz4Enabled()) {
+            log.warn("Note content does not use lz4 compression, nothing to backfill");
+            return new CompressionBackfillResult(0, 0, Duration.ofNanos(System.nanoTime() - start));
+        }
+        long scanned = 0;
+        long rewritten = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            long[] batch = jdbcTemplate.queryForObject(
+                    "select count(*), max(id) from (select id from notes where id > ? order by id limit ?) batch",
+                    (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                    lastId,
+                    settings.backfillBatchSize());
+            if (batch == null || batch[0] == 0) {
+                break;
+            }
+            long batchEndId = batch[1];
+            long fromId = lastId;
+            Integer batchRewritten = transactionTemplate.execute(status -> jdbcTemplate.update("""
+                    update notes set content = content || ''
+                    where id > ? and id <= ? and pg_column_compression(content) = 'pglz'
+                    """, fromId, batchEndId));
+            rewritten += batchRewritten != null ? batchRewritten : 0;
+            scanned += batch[0];
+            lastId = batchEndId;
+            log.debug("Compression backfill at note id {}, {} notes rewritten so far", lastId, rewritten);
+            if (!pause()) {
+                break;
+            }
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Compression backfill rewrote {} notes in {}", rewritten, duration);
+        return new CompressionBackfillResult(scanned, rewritten, duration);
+    }
+
+    private boolean pause() {
+        if (settings.backfillPause().isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(settings.backfillPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Compression backfill interrupted");
+            return false;
+        }
+    }
+}
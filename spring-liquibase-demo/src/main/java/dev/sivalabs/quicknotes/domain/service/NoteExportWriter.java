@@ -0,0 +1,96 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import dev.sivalabs.quicknotes.domain.model.ExportFormat;
+import dev.sivalabs.quicknotes.domain.model.NoteExport;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes exported notes one by one, nothing is buffered beyond the underlying Writer.
+ */
+abstract class NoteExportWriter {
+    protected final Writer writer;
+
+    private NoteExportWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    static NoteExportWriter create(ExportFormat format, Writer writer, JsonMapper jsonMapper) {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(writer, jsonMapper);
+            case CSV -> new CsvWriter(writer);
+        };
+    }
+
+    void writeHeader() throws IOException {}
+
+    abstract void write(NoteExport note) throws IOException;
+
+    private static final class NdjsonWriter extends NoteExportWriter {
+        private final JsonMapper jsonMapper;
+
+        NdjsonWriter(Writer writer, JsonMapper jsonMapper) {
+            super(writer);
+            this.jsonMapper = jsonMapper;
+        }
+
+        @Override
+        void write(NoteExport note) throws IOException {
+            writer.write(jsonMapper.writeValueAsString(note));
+            writer.write('\n');
+        }
+    }
+
+    private static final class CsvWriter extends NoteExportWriter {
+
+        CsvWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            writer.write("id,title,content,archived,createdAt,updatedAt\r\n");
+        }
+
+        @Override
+        void write(NoteExport note) throws IOException {
+            writer.write(String.valueOf(note.id()));
+            writer.write(',');
+            writeField(note.title());
+            writer.write(',');
+            writeField(note.content());
+            writer.write(',');
+            writer.write(String.valueOf(note.archived()));
+            writer.write(',');
+            writeInstant(note.createdAt());
+            writer.write(',');
+            writeInstant(note.updatedAt());
+            writer.write("\r\n");
+        }
+
+        private void writeInstant(Instant instant) throws IOException {
+            if (instant != null) {
+                writer.write(instant.toString());
+            }
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = value.indexOf(',') >= 0
+                    || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
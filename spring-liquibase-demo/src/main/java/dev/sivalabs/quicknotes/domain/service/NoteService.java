@@ -1,29 +1,116 @@
 package dev.sivalabs.quicknotes.domain.service;
 
+import dev.sivalabs.quicknotes.ApplicationProperties;
 import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.entity.User;
 import dev.sivalabs.quicknotes.domain.exception.ResourceNotFoundException;
 import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.model.CursorResult;
+import dev.sivalabs.quicknotes.domain.model.ExportFormat;
+import dev.sivalabs.quicknotes.domain.model.ImportBatch;
+import dev.sivalabs.quicknotes.domain.model.ImportResult;
+import dev.sivalabs.quicknotes.domain.model.NoteCursor;
+import dev.sivalabs.quicknotes.domain.model.NoteExport;
+import dev.sivalabs.quicknotes.domain.model.NoteSearchHit;
+import dev.sivalabs.quicknotes.domain.model.NoteStats;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
 import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.model.SearchEngine;
+import dev.sivalabs.quicknotes.domain.model.SlicedResult;
 import dev.sivalabs.quicknotes.domain.model.UpdateNoteCmd;
+import dev.sivalabs.quicknotes.domain.repo.NoteFootprint;
 import dev.sivalabs.quicknotes.domain.repo.NoteRepository;
+import dev.sivalabs.quicknotes.domain.repo.NoteSearchMatch;
+import dev.sivalabs.quicknotes.domain.repo.NoteTotals;
+import dev.sivalabs.quicknotes.domain.repo.UserNoteStatsRepository;
 import dev.sivalabs.quicknotes.domain.repo.UserRepository;
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndex;
+import dev.sivalabs.quicknotes.domain.utils.SearchTerms;
+import dev.sivalabs.quicknotes.domain.utils.TsidGenerator;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+import tools.jackson.databind.json.JsonMapper;
 
 @Service
 @Transactional(readOnly = true)
 public class NoteService {
+    private static final int PAGE_SIZE = 10;
+    // Private use characters the snippet query puts around matched terms
+    private static final String HIGHLIGHT_START = "\uE000";
+    private static final String HIGHLIGHT_END = "\uE001";
+
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
+    private final UserNoteStatsRepository userNoteStatsRepository;
+    private final NoteSearchIndex noteSearchIndex;
+    private final TsidGenerator tsidGenerator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final SearchEngine searchEngine;
+    private final int importBatchSize;
 
-    NoteService(NoteRepository noteRepository, UserRepository userRepository) {
+    NoteService(
+            NoteRepository noteRepository,
+            UserRepository userRepository,
+            UserNoteStatsRepository userNoteStatsRepository,
+            NoteSearchIndex noteSearchIndex,
+            TsidGenerator tsidGenerator,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            JsonMapper jsonMapper,
+            ApplicationProperties properties) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.userNoteStatsRepository = userNoteStatsRepository;
+        this.noteSearchIndex = noteSearchIndex;
+        this.tsidGenerator = tsidGenerator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.searchEngine = properties.search().engine();
+        this.importBatchSize = properties.notes().importBatchSize();
     }
 
+    /**
+     * Lists the notes without reading their content, which is loaded lazily and is not available once the
+     * transaction ended. Use {@link #getNoteById} for the content, or the summaries for a preview.
+     * The slice, cursor and search methods return notes with their content.
+     */
     public PagedResult<Note> findUserNotes(Long userId, int pageNumber) {
         return findUserArchivedNotes(userId, false, pageNumber);
     }
@@ -34,11 +121,144 @@ public class NoteService {
 
     private PagedResult<Note> findUserArchivedNotes(Long userId, boolean isArchived, int pageNumber) {
         PageRequest pageRequest = getPageRequest(pageNumber);
-        Page<Note> page = noteRepository.findUserNotes(userId, isArchived, pageRequest);
+        List<Note> notes = noteRepository.findUserNotes(userId, isArchived, pageRequest);
+        return new PagedResult<>(new PageImpl<>(notes, pageRequest, getNoteStats(userId).count(isArchived)));
+    }
+
+    public PagedResult<NoteSummary> findUserNoteSummaries(Long userId, int pageNumber) {
+        return findUserNoteSummaries(userId, false, pageNumber);
+    }
+
+    public PagedResult<NoteSummary> findUserArchivedNoteSummaries(Long userId, int pageNumber) {
+        return findUserNoteSummaries(userId, true, pageNumber);
+    }
+
+    private PagedResult<NoteSummary> findUserNoteSummaries(Long userId, boolean isArchived, int pageNumber) {
+        PageRequest pageRequest = getPageRequest(pageNumber);
+        List<NoteSummary> summaries = noteRepository.findUserNoteSummaries(userId, isArchived, pageRequest);
+        return new PagedResult<>(new PageImpl<>(summaries, pageRequest, getNoteStats(userId).count(isArchived)));
+    }
+
+    /**
+     * Searches like {@link #searchNotes}, with the same in-memory index and engine, and returns summaries.
+     */
+    public PagedResult<NoteSummary> searchNoteSummaries(
+            Long userId, String query, int pageNumber, boolean includeArchived) {
+        long[] matchingIds = noteSearchIndex.search(userId, query, includeArchived);
+        if (matchingIds != null) {
+            return summariesOf(inMemorySearchPage(matchingIds, pageNumber));
+        }
+        if (searchEngine == SearchEngine.FULL_TEXT) {
+            PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+            String tsQuery = SearchTerms.toPrefixTsQuery(query);
+            if (tsQuery.isEmpty()) {
+                return new PagedResult<>(Page.empty(pageRequest));
+            }
+            return summariesOf(noteRepository.fullTextSearchNoteIds(userId, tsQuery, includeArchived, pageRequest));
+        }
+        if (searchEngine == SearchEngine.TRIGRAM) {
+            PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+            return summariesOf(
+                    noteRepository.trigramSearchNoteIds(userId, likePattern(query), includeArchived, pageRequest));
+        }
+        PageRequest pageRequest = getPageRequest(pageNumber);
+        Page<NoteSummary> page = noteRepository.searchNoteSummaries(userId, query, includeArchived, pageRequest);
         return new PagedResult<>(page);
     }
 
+    // Reads the summaries of a page of ids, in the order of the ids
+    private PagedResult<NoteSummary> summariesOf(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PagedResult<>(new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements()));
+        }
+        Map<Long, NoteSummary> summariesById = noteRepository.findNoteSummariesByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(NoteSummary::id, Function.identity()));
+        List<NoteSummary> summaries = ids.getContent().stream()
+                .map(summariesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PagedResult<>(new PageImpl<>(summaries, ids.getPageable(), ids.getTotalElements()));
+    }
+
+    public SlicedResult<Note> findUserNotesSlice(Long userId, int pageNumber) {
+        return findUserNotesSlice(userId, false, pageNumber);
+    }
+
+    public SlicedResult<Note> findUserArchivedNotesSlice(Long userId, int pageNumber) {
+        return findUserNotesSlice(userId, true, pageNumber);
+    }
+
+    private SlicedResult<Note> findUserNotesSlice(Long userId, boolean isArchived, int pageNumber) {
+        PageRequest pageRequest = getPageRequest(pageNumber);
+        Slice<Note> slice = noteRepository.findUserNotesSlice(userId, isArchived, pageRequest);
+        return new SlicedResult<>(slice);
+    }
+
+    public long countUserNotes(Long userId) {
+        return getNoteStats(userId).activeCount();
+    }
+
+    public long countUserArchivedNotes(Long userId) {
+        return getNoteStats(userId).archivedCount();
+    }
+
+    /**
+     * Note counts, content size and time of the last write of the user, a primary key lookup.
+     */
+    public NoteStats getNoteStats(Long userId) {
+        return userNoteStatsRepository.findStats(userId).orElse(NoteStats.EMPTY);
+    }
+
+    /**
+     * Recounts the note stats of every user from the notes table, after notes were written around NoteService,
+     * e.g. loaded with SQL. Note writes that commit while it runs can be missing from the result.
+     *
+     * @return the number of users
+     */
+    @Transactional
+    public int recalculateNoteStats() {
+        return userNoteStatsRepository.recalculateAll();
+    }
+
+    public CursorResult<Note> findUserNotesByCursor(Long userId, String cursor) {
+        return findUserNotesByCursor(userId, false, cursor);
+    }
+
+    public CursorResult<Note> findUserArchivedNotesByCursor(Long userId, String cursor) {
+        return findUserNotesByCursor(userId, true, cursor);
+    }
+
+    private CursorResult<Note> findUserNotesByCursor(Long userId, boolean isArchived, String cursor) {
+        // Fetch one extra row to find out whether there is a next page without running a count query
+        Limit limit = Limit.of(PAGE_SIZE + 1);
+        List<Note> notes;
+        if (cursor == null || cursor.isBlank()) {
+            notes = noteRepository.findUserNotesFirstPage(userId, isArchived, limit);
+        } else {
+            NoteCursor position = NoteCursor.decode(cursor);
+            notes = noteRepository.findUserNotesAfter(userId, isArchived, position.createdAt(), position.id(), limit);
+        }
+        boolean hasNext = notes.size() > PAGE_SIZE;
+        List<Note> data = hasNext ? notes.subList(0, PAGE_SIZE) : notes;
+        String nextCursor = null;
+        if (hasNext) {
+            Note last = data.getLast();
+            nextCursor = new NoteCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorResult<>(data, nextCursor, hasNext);
+    }
+
     public PagedResult<Note> searchNotes(Long userId, String query, int pageNumber, boolean includeArchived) {
+        long[] matchingIds = noteSearchIndex.search(userId, query, includeArchived);
+        if (matchingIds != null) {
+            return notesOf(inMemorySearchPage(matchingIds, pageNumber));
+        }
+        if (searchEngine == SearchEngine.FULL_TEXT) {
+            return fullTextSearchNotes(userId, query, pageNumber, includeArchived);
+        }
+        if (searchEngine == SearchEngine.TRIGRAM) {
+            return trigramSearchNotes(userId, query, pageNumber, includeArchived);
+        }
         PageRequest pageRequest = getPageRequest(pageNumber);
         Page<Note> page;
         if (includeArchived) {
@@ -49,12 +269,104 @@ public class NoteService {
         return new PagedResult<>(page);
     }
 
+    private Page<Long> inMemorySearchPage(long[] matchingIds, int pageNumber) {
+        // The index returns the ids in the order of the full-text engine, by rank and then newest first
+        PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+        int total = matchingIds.length;
+        int from = (int) Math.min(pageRequest.getOffset(), total);
+        int to = Math.min(from + pageRequest.getPageSize(), total);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(matchingIds[i]);
+        }
+        return new PageImpl<>(pageIds, pageRequest, total);
+    }
+
+    private PagedResult<Note> notesOf(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PagedResult<>(new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements()));
+        }
+        Map<Long, Note> notesById = noteRepository.findNotesByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+        List<Note> notes =
+                ids.getContent().stream().map(notesById::get).filter(Objects::nonNull).toList();
+        return new PagedResult<>(new PageImpl<>(notes, ids.getPageable(), ids.getTotalElements()));
+    }
+
+    private PagedResult<Note> fullTextSearchNotes(
+            Long userId, String query, int pageNumber, boolean includeArchived) {
+        // Native queries are ordered by rank, so the page request must not carry a sort
+        PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+        String tsQuery = SearchTerms.toPrefixTsQuery(query);
+        if (tsQuery.isEmpty()) {
+            return new PagedResult<>(Page.empty(pageRequest));
+        }
+        return notesOf(noteRepository.fullTextSearchNoteIds(userId, tsQuery, includeArchived, pageRequest));
+    }
+
+    private PagedResult<Note> trigramSearchNotes(
+            Long userId, String query, int pageNumber, boolean includeArchived) {
+        // lower(column) LIKE '%...%' matches the expression of the GIN trigram indexes
+        PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+        return notesOf(
+                noteRepository.trigramSearchNoteIds(userId, likePattern(query), includeArchived, pageRequest));
+    }
+
+    private static String likePattern(String query) {
+        return "%" + escapeLikePattern(query == null ? "" : query) + "%";
+    }
+
+    static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Full-text search ordered by relevance, with highlighted content snippets.
+     * Every search term is matched as a prefix, so "carbo" finds "Carbonara".
+     */
+    public PagedResult<NoteSearchHit> searchNotesRanked(
+            Long userId, String query, int pageNumber, boolean includeArchived) {
+        PageRequest pageRequest = getUnsortedPageRequest(pageNumber);
+        String tsQuery = SearchTerms.toPrefixTsQuery(query);
+        if (tsQuery.isEmpty()) {
+            return new PagedResult<>(Page.empty(pageRequest));
+        }
+        Page<NoteSearchMatch> page =
+                noteRepository.fullTextSearchMatches(userId, tsQuery, includeArchived, pageRequest);
+        List<Long> ids = page.getContent().stream().map(NoteSearchMatch::getId).toList();
+        Map<Long, Note> notesById =
+                noteRepository.findNotesByIds(ids).stream().collect(Collectors.toMap(Note::getId, Function.identity()));
+        return new PagedResult<>(page)
+                .map(match -> new NoteSearchHit(
+                        notesById.get(match.getId()), match.getRank(), highlightSnippet(match.getSnippet())));
+    }
+
+    /**
+     * Escapes the snippet before turning the neutral highlight markers of the query into {@code <mark>} tags,
+     * so markup in the note content is shown as text.
+     */
+    static String highlightSnippet(String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(snippet, StandardCharsets.UTF_8.name())
+                .replace(HIGHLIGHT_START, "<mark>")
+                .replace(HIGHLIGHT_END, "</mark>");
+    }
+
     private PageRequest getPageRequest(int pageNumber) {
         // Convert 1-indexed page to 0-indexed for Spring Data
         if (pageNumber <= 0) {
             pageNumber = 1;
         }
-        return PageRequest.of(pageNumber - 1, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return PageRequest.of(pageNumber - 1, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    private PageRequest getUnsortedPageRequest(int pageNumber) {
+        if (pageNumber <= 0) {
+            pageNumber = 1;
+        }
+        return PageRequest.of(pageNumber - 1, PAGE_SIZE);
     }
 
     @Transactional
@@ -67,50 +379,283 @@ public class NoteService {
         note.setUser(user);
         note.setArchived(false);
 
-        return noteRepository.save(note);
+        Note savedNote = noteRepository.save(note);
+        long version = updateNoteStats(cmd.userId(), 1, 0, contentBytes(cmd.content()));
+        noteSearchIndex.onNoteSaved(cmd.userId(), version, savedNote.getId(), false);
+        return savedNote;
     }
 
-    public Note getNoteById(Long noteId, Long userId) {
-        Note note = noteRepository
-                .findById(noteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId));
+    /**
+     * Imports notes for the user in batches of {@code app.notes.import-batch-size}, each committed in its own
+     * transaction. The userId of the commands is ignored, every note is owned by the given user.
+     * If a batch fails, the batches committed before it stay imported.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importNotes(Long userId, Stream<CreateNoteCmd> notes) {
+        return importNotes(userId, notes, batch -> {});
+    }
 
-        // Security: Verify note belongs to the current user
-        if (!note.getUser().getId().equals(userId)) {
-            // throw new RuntimeException("Access denied: Note does not belong to user");
-            // throwing NotFound to not reveal existence of a note owned by another user
-            throw new ResourceNotFoundException("Note not found");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importNotes(Long userId, Stream<CreateNoteCmd> notes, Consumer<ImportBatch> progressListener) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        long start = System.nanoTime();
+        List<ImportBatch> batches = new ArrayList<>();
+        long totalImported = 0;
+        try {
+            List<CreateNoteCmd> chunk = new ArrayList<>(importBatchSize);
+            Iterator<CreateNoteCmd> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == importBatchSize || !iterator.hasNext()) {
+                    long batchStart = System.nanoTime();
+                    insertNotes(userId, chunk);
+                    totalImported += chunk.size();
+                    ImportBatch batch = new ImportBatch(
+                            batches.size() + 1,
+                            chunk.size(),
+                            totalImported,
+                            Duration.ofNanos(System.nanoTime() - batchStart));
+                    batches.add(batch);
+                    progressListener.accept(batch);
+                    chunk.clear();
+                }
+            }
+        } finally {
+            if (totalImported > 0) {
+                noteSearchIndex.evict(userId);
+            }
         }
+        return new ImportResult(totalImported, Duration.ofNanos(System.nanoTime() - start), List.copyOf(batches));
+    }
 
+    private void insertNotes(Long userId, List<CreateNoteCmd> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = entityManager.getReference(User.class, userId);
+            // Ids are assigned up front, so Hibernate can group the inserts into JDBC batches
+            long[] ids = tsidGenerator.nextIds(chunk.size());
+            long importedBytes = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                CreateNoteCmd cmd = chunk.get(i);
+                var note = new Note();
+                note.setId(ids[i]);
+                note.setTitle(cmd.title());
+                note.setContent(cmd.content());
+                note.setUser(user);
+                note.setArchived(false);
+                entityManager.persist(note);
+                importedBytes += contentBytes(cmd.content());
+            }
+            entityManager.flush();
+            entityManager.clear();
+            updateNoteStats(userId, chunk.size(), 0, importedBytes);
+        });
+    }
+
+    /**
+     * Writes all notes of the user to the output, newest first, as they are read from the database.
+     * Memory use does not depend on the number of notes. The output is flushed but not closed.
+     *
+     * @return the number of exported notes
+     */
+    public long exportNotes(Long userId, OutputStream output, ExportFormat format) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        NoteExportWriter exportWriter = NoteExportWriter.create(format, writer, jsonMapper);
+        long count = 0;
+        try (Stream<NoteExport> notes = noteRepository.streamUserNotes(userId)) {
+            exportWriter.writeHeader();
+            Iterator<NoteExport> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                exportWriter.write(iterator.next());
+                count++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export notes of user " + userId, e);
+        }
+        return count;
+    }
+
+    public Note getNoteById(Long noteId, Long userId) {
+        // Scoping the lookup by owner hides notes of other users behind the same not-found response
+        Note note = activeFirst(archived -> noteRepository.findByIdAndUserIdAndArchived(noteId, userId, archived))
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId));
+        // The content is lazy, load it while the session is still open
+        note.getContent();
         return note;
     }
 
+    public boolean isNoteOwnedBy(Long noteId, Long userId) {
+        return noteRepository.existsByIdAndUserIdAndArchived(noteId, userId, false)
+                || noteRepository.existsByIdAndUserIdAndArchived(noteId, userId, true);
+    }
+
     @Transactional
     public void updateNote(UpdateNoteCmd cmd) {
-        Note note = getNoteById(cmd.id(), cmd.userId());
-        note.setTitle(cmd.title());
-        note.setContent(cmd.content());
-
-        noteRepository.save(note);
+        Instant now = Instant.now();
+        NoteFootprint before = activeFirst(archived -> noteRepository.updateOwnedNote(
+                        cmd.id(), cmd.userId(), archived, cmd.title(), cmd.content(), now))
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + cmd.id()));
+        evictCachedNote(cmd.id());
+        long version = updateNoteStats(cmd.userId(), 0, 0, contentBytes(cmd.content()) - before.getContentBytes());
+        noteSearchIndex.onNoteSaved(cmd.userId(), version, cmd.id(), before.getArchived());
     }
 
     @Transactional
     public void deleteNote(Long noteId, Long userId) {
-        Note note = getNoteById(noteId, userId);
-        noteRepository.delete(note);
+        NoteFootprint note = activeFirst(archived -> noteRepository.deleteOwnedNote(noteId, userId, archived))
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId));
+        evictCachedNote(noteId);
+        boolean archived = note.getArchived();
+        long version = updateNoteStats(userId, archived ? 0 : -1, archived ? -1 : 0, -note.getContentBytes());
+        noteSearchIndex.onNoteDeleted(userId, version, noteId);
     }
 
     @Transactional
     public void archiveNote(Long noteId, Long userId) {
-        Note note = getNoteById(noteId, userId);
-        note.setArchived(true);
-        noteRepository.save(note);
+        setArchived(noteId, userId, true);
     }
 
     @Transactional
     public void unarchiveNote(Long noteId, Long userId) {
-        Note note = getNoteById(noteId, userId);
-        note.setArchived(false);
-        noteRepository.save(note);
+        setArchived(noteId, userId, false);
+    }
+
+    private void setArchived(Long noteId, Long userId, boolean archived) {
+        Instant now = Instant.now();
+        // A note being archived is most likely active, and the other way round
+        boolean wasArchived = noteRepository
+                .updateOwnedNoteArchivedStatus(noteId, userId, !archived, archived, now)
+                .or(() -> noteRepository.updateOwnedNoteArchivedStatus(noteId, userId, archived, archived, now))
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId))
+                .getArchived();
+        evictCachedNote(noteId);
+        long moved = wasArchived == archived ? 0 : 1;
+        long version = updateNoteStats(userId, archived ? -moved : moved, archived ? moved : -moved, 0);
+        noteSearchIndex.onNoteArchived(userId, version, noteId, archived);
+    }
+
+    /**
+     * Archives all non-archived notes of the user created before the given instant.
+     *
+     * @return the number of archived notes
+     */
+    @Transactional
+    public int archiveNotesCreatedBefore(Long userId, Instant before) {
+        int archived = noteRepository.archiveNotesCreatedBefore(userId, before, Instant.now());
+        if (archived > 0) {
+            updateNoteStats(userId, -archived, archived, 0);
+            noteSearchIndex.evict(userId);
+        }
+        return archived;
+    }
+
+    /**
+     * Archives the given notes of the user. Ids of notes owned by other users are ignored.
+     *
+     * @return the number of notes that changed from active to archived
+     */
+    @Transactional
+    public int archiveNotes(Long userId, Collection<Long> noteIds) {
+        return updateArchivedStatus(userId, noteIds, true);
+    }
+
+    /**
+     * Unarchives the given notes of the user. Ids of notes owned by other users are ignored.
+     *
+     * @return the number of notes that changed from archived to active
+     */
+    @Transactional
+    public int unarchiveNotes(Long userId, Collection<Long> noteIds) {
+        return updateArchivedStatus(userId, noteIds, false);
+    }
+
+    private int updateArchivedStatus(Long userId, Collection<Long> noteIds, boolean archived) {
+        if (noteIds.isEmpty()) {
+            return 0;
+        }
+        // Only notes whose status changes are updated, so the count moves from one counter to the other
+        int updated = noteRepository.updateArchivedStatus(userId, noteIds, archived, Instant.now());
+        if (updated > 0) {
+            long version = updateNoteStats(userId, archived ? -updated : updated, archived ? updated : -updated, 0);
+            // The user's index only holds the user's own notes, so foreign ids are no-ops
+            noteSearchIndex.onNotesArchived(userId, version, noteIds, archived);
+        }
+        return updated;
+    }
+
+    /**
+     * Permanently deletes all archived notes of the user.
+     *
+     * @return the number of deleted notes
+     */
+    @Transactional
+    public int deleteArchivedNotes(Long userId) {
+        NoteTotals deleted = noteRepository.deleteArchivedNotes(userId);
+        if (deleted.getCount() > 0) {
+            evictCachedNotes(cache -> cache.evict(Note.class));
+            updateNoteStats(userId, 0, -deleted.getCount(), -deleted.getContentBytes());
+            noteSearchIndex.evict(userId);
+        }
+        return (int) deleted.getCount();
+    }
+
+    /**
+     * Every note write ends with this update of the user's stats row. The deltas come from the rows the write
+     * itself changed, which it holds locked until commit, so concurrent writes of the user add up exactly.
+     * They only wait for each other on the stats row, from this update until they commit.
+     *
+     * Users inserted around UserService, e.g. with SQL, have no stats row yet. It is created on their first note
+     * write from a count of their notes.
+     *
+     * @return the new version of the stats row, which tells the in-memory search index which writes it has seen
+     */
+    private long updateNoteStats(Long userId, long activeDelta, long archivedDelta, long contentBytesDelta) {
+        Instant now = Instant.now();
+        Optional<Long> version =
+                userNoteStatsRepository.applyDelta(userId, activeDelta, archivedDelta, contentBytesDelta, now);
+        if (version.isPresent()) {
+            return version.get();
+        }
+        // The count has to see the note this write saved
+        entityManager.flush();
+        return userNoteStatsRepository.createFromNotesOrApplyDelta(
+                userId, activeDelta, archivedDelta, contentBytesDelta, now);
+    }
+
+    /**
+     * Runs a lookup or write of a single note against the active notes, then the archived ones. On a partitioned
+     * notes table each attempt only touches one partition, and most notes are active.
+     */
+    private static <T> Optional<T> activeFirst(Function<Boolean, Optional<T>> byArchived) {
+        return byArchived.apply(false).or(() -> byArchived.apply(true));
+    }
+
+    private void evictCachedNote(Long noteId) {
+        evictCachedNotes(cache -> cache.evict(Note.class, noteId));
+    }
+
+    /**
+     * Evicts notes changed by a native write from the second-level cache, once now and once more when the
+     * transaction completes, so that a concurrent load of the old rows cannot put them back in between.
+     */
+    private void evictCachedNotes(Consumer<Cache> eviction) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        eviction.accept(cache);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.accept(cache);
+            }
+        });
+    }
+
+    // Same as octet_length(content) in a UTF-8 database
+    private static long contentBytes(String content) {
+        return content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length;
     }
 }
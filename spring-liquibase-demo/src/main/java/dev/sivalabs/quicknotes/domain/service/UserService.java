@@ -1,8 +1,10 @@
 package dev.sivalabs.quicknotes.domain.service;
 
 import dev.sivalabs.quicknotes.domain.entity.User;
+import dev.sivalabs.quicknotes.domain.entity.UserNoteStats;
 import dev.sivalabs.quicknotes.domain.exception.BadRequestException;
 import dev.sivalabs.quicknotes.domain.model.CreateUserCmd;
+import dev.sivalabs.quicknotes.domain.repo.UserNoteStatsRepository;
 import dev.sivalabs.quicknotes.domain.repo.UserRepository;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
@@ -12,9 +14,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional(readOnly = true)
 public class UserService {
     private final UserRepository userRepository;
+    private final UserNoteStatsRepository userNoteStatsRepository;
 
-    UserService(UserRepository userRepository) {
+    UserService(UserRepository userRepository, UserNoteStatsRepository userNoteStatsRepository) {
         this.userRepository = userRepository;
+        this.userNoteStatsRepository = userNoteStatsRepository;
     }
 
     public Optional<User> findByEmail(String email) {
@@ -32,5 +36,7 @@ public class UserService {
         user.setPassword(cmd.password());
         user.setRole(cmd.role());
         userRepository.save(user);
+        // Note writes only update the stats row, they fail for a user without one
+        userNoteStatsRepository.save(new UserNoteStats(user.getId()));
     }
 }
@@ -0,0 +1,95 @@
+package dev.sivalabs.quicknotes.migration;
+
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.Backfill;
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.BackfillProgress;
+import java.sql.SQLException;
+import java.time.Duration;
+import liquibase.database.Database;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+
+/**
+ * {@code <customChange class="dev.sivalabs.quicknotes.migration.BatchedBackfillChange" tableName="notes"
+ * set="title_lower = lower(title)" where="title_lower is null" batchSize="1000" pauseMillis="100"/>}
+ * in a change set with runInTransaction="false". Progress is logged after every batch.
+ */
+public class BatchedBackfillChange extends OnlineCustomChange {
+    private String tableName;
+    private String set;
+    private String where;
+    private Integer batchSize = 1000;
+    private Long pauseMillis = 100L;
+    private BackfillProgress result;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Backfill backfill = Backfill.of(tableName, set, where)
+                .withBatchSize(batchSize)
+                .withPause(Duration.ofMillis(pauseMillis));
+        try {
+            result = OnlineMigrations.backfill(connection(database), backfill);
+        } catch (SQLException | IllegalStateException e) {
+            throw new CustomChangeException("Could not backfill " + tableName, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return result == null
+                ? "Backfill of " + tableName
+                : "Backfilled %d of %d rows of %s in %d ms"
+                        .formatted(result.updated(), result.scanned(), tableName, result.elapsed().toMillis());
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        errors.checkRequiredField("set", set);
+        errors.checkRequiredField("where", where);
+        if (batchSize < 1) {
+            errors.addError("batchSize must be at least 1");
+        }
+        return errors;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getSet() {
+        return set;
+    }
+
+    public void setSet(String set) {
+        this.set = set;
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public void setWhere(String where) {
+        this.where = where;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    public void setPauseMillis(Long pauseMillis) {
+        this.pauseMillis = pauseMillis;
+    }
+}
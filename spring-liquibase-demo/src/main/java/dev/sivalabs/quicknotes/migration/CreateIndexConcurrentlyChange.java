@@ -0,0 +1,54 @@
+package dev.sivalabs.quicknotes.migration;
+
+import java.sql.SQLException;
+import liquibase.database.Database;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+
+/**
+ * {@code <customChange class="dev.sivalabs.quicknotes.migration.CreateIndexConcurrentlyChange"
+ * indexName="idx_notes_title_lower" definition="notes (title_lower)"/>}
+ * in a change set with runInTransaction="false".
+ */
+public class CreateIndexConcurrentlyChange extends OnlineCustomChange {
+    private String indexName;
+    private String definition;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        try {
+            OnlineMigrations.createIndexConcurrently(connection(database), indexName, definition);
+        } catch (SQLException | IllegalStateException e) {
+            throw new CustomChangeException("Could not create index " + indexName, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Index " + indexName + " created concurrently";
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("indexName", indexName);
+        errors.checkRequiredField("definition", definition);
+        return errors;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    public void setDefinition(String definition) {
+        this.definition = definition;
+    }
+}
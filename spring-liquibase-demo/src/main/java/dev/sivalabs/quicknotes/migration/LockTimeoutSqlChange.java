@@ -0,0 +1,70 @@
+package dev.sivalabs.quicknotes.migration;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import liquibase.database.Database;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+
+/**
+ * Runs a statement with a short lock_timeout and retries it when the lock is not granted, e.g.
+ * {@code <customChange class="dev.sivalabs.quicknotes.migration.LockTimeoutSqlChange"
+ * sql="alter table notes add column title_lower text"/>}.
+ */
+public class LockTimeoutSqlChange extends OnlineCustomChange {
+    private String sql;
+    private Long lockTimeoutMillis = OnlineMigrations.DEFAULT_LOCK_TIMEOUT.toMillis();
+    private Integer attempts = OnlineMigrations.DEFAULT_ATTEMPTS;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        try {
+            OnlineMigrations.executeWithLockTimeout(
+                    connection(database),
+                    Duration.ofMillis(lockTimeoutMillis),
+                    attempts,
+                    statement -> statement.execute(sql));
+        } catch (SQLException e) {
+            throw new CustomChangeException("Could not execute " + sql, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Executed with a " + lockTimeoutMillis + " ms lock timeout: " + sql;
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("sql", sql);
+        if (attempts < 1) {
+            errors.addError("attempts must be at least 1");
+        }
+        return errors;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public Long getLockTimeoutMillis() {
+        return lockTimeoutMillis;
+    }
+
+    public void setLockTimeoutMillis(Long lockTimeoutMillis) {
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+}
@@ -0,0 +1,181 @@
+package dev.sivalabs.quicknotes.migration;
+
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.Copy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Partitions notes by archived, and archived notes by month of created_at, without blocking the table while its rows
+ * are moved. The hot path (archived = false) then only touches notes_active, and old months can be detached.
+ * The primary key has to include the partition keys; ids are TSIDs and stay unique without a global constraint.
+ * <ol>
+ *     <li>notes_partitioned is created next to notes, with its partitions and indexes</li>
+ *     <li>a trigger mirrors every write of notes into it</li>
+ *     <li>the existing rows are copied in batches, see {@link OnlineMigrations#copy}</li>
+ *     <li>the tables are swapped in one short transaction, the only one that locks notes exclusively</li>
+ * </ol>
+ * Every step is safe to run again, a failed migration is completed when it is retried.
+ */
+public final class NotesPartitioning {
+    private static final Logger log = LoggerFactory.getLogger(NotesPartitioning.class);
+
+    private static final String COLUMNS = "id, title, content, user_id, archived, created_at, updated_at";
+
+    // Indexes of notes_partitioned, renamed to the names of the notes indexes they replace by the swap
+    private static final List<String[]> INDEXES = List.of(
+            new String[] {"idx_notes_user_archived_created_id", "(user_id, archived, created_at desc, id desc)"},
+            new String[] {"idx_notes_user_created_id", "(user_id, created_at desc, id desc)"},
+            new String[] {"idx_notes_search_vector", "using gin (search_vector)"},
+            new String[] {"idx_notes_title_trgm", "using gin (lower(title) gin_trgm_ops)"},
+            new String[] {"idx_notes_content_trgm", "using gin (lower(content) gin_trgm_ops)"});
+
+    private NotesPartitioning() {}
+
+    public static void migrate(Connection connection) throws SQLException {
+        if (isPartitioned(connection)) {
+            log.info("notes is already partitioned");
+            return;
+        }
+        createPartitionedTable(connection);
+        mirrorWrites(connection);
+        OnlineMigrations.copy(connection, Copy.of("notes", "notes_partitioned", COLUMNS));
+        swap(connection);
+    }
+
+    private static void createPartitionedTable(Connection connection) throws SQLException {
+        OnlineMigrations.executeWithLockTimeout(connection, """
+                create table if not exists notes_partitioned
+                (
+                    id            bigint    not null,
+                    title         text      not null,
+                    content       text      not null,
+                    user_id       bigint    not null,
+                    archived      boolean   not null default false,
+                    created_at    timestamp not null,
+                    updated_at    timestamp,
+                    search_vector tsvector generated always as (
+                        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                        setweight(to_tsvector('english', coalesce(content, '')), 'B')
+                    ) stored,
+                    constraint notes_partitioned_pkey primary key (id, archived, created_at),
+                    constraint notes_partitioned_user_id_fkey foreign key (user_id) references users (id)
+                ) partition by list (archived)
+                """);
+        execute(connection, """
+                create table if not exists notes_active partition of notes_partitioned for values in (false)
+                """);
+        execute(connection, """
+                create table if not exists notes_archived partition of notes_partitioned for values in (true)
+                partition by range (created_at)
+                """);
+        execute(connection, "create table if not exists notes_archived_default partition of notes_archived default");
+        // Monthly partitions for the archived notes of the last year (or older, if there are any) and the next
+        // 3 months. Further months are created by NotePartitionMaintenance.
+        execute(connection, """
+                do $$
+                declare
+                    month_start date;
+                    last_month  date := date_trunc('month', current_date + interval '3 months');
+                begin
+                    select least(date_trunc('month', min(created_at)),
+                                 date_trunc('month', current_date - interval '12 months'))
+                    into month_start
+                    from notes
+                    where archived;
+
+                    while month_start <= last_month loop
+                        execute format('create table if not exists notes_archived_p%s partition of notes_archived '
+                                       'for values from (%L) to (%L)',
+                                       to_char(month_start, 'YYYYMM'), month_start, month_start + interval '1 month');
+                        month_start := month_start + interval '1 month';
+                    end loop;
+                end
+                $$
+                """);
+        // Built on the empty table, so the mirrored writes never wait for an index build
+        for (String[] index : INDEXES) {
+            execute(connection, "create index if not exists %s on notes_partitioned %s"
+                    .formatted(temporaryName(index[0]), index[1]));
+        }
+    }
+
+    private static void mirrorWrites(Connection connection) throws SQLException {
+        execute(connection, """
+                create or replace function notes_mirror_to_partitioned() returns trigger
+                language plpgsql as $$
+                begin
+                    if tg_op in ('UPDATE', 'DELETE') then
+                        delete from notes_partitioned
+                        where id = old.id and archived = old.archived and created_at = old.created_at;
+                    end if;
+                    if tg_op in ('INSERT', 'UPDATE') then
+                        insert into notes_partitioned (id, title, content, user_id, archived, created_at, updated_at)
+                        values (new.id, new.title, new.content, new.user_id, new.archived, new.created_at,
+                                new.updated_at);
+                    end if;
+                    return null;
+                end
+                $$
+                """);
+        OnlineMigrations.executeWithLockTimeout(connection, """
+                create or replace trigger notes_mirror_to_partitioned
+                after insert or update or delete on notes
+                for each row execute function notes_mirror_to_partitioned()
+                """);
+    }
+
+    // The trigger kept notes_partitioned current up to the lock, nothing writes notes after it
+    private static void swap(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            OnlineMigrations.executeWithLockTimeout(
+                    connection,
+                    OnlineMigrations.DEFAULT_LOCK_TIMEOUT,
+                    OnlineMigrations.DEFAULT_ATTEMPTS,
+                    statement -> {
+                        statement.execute("lock table notes in access exclusive mode");
+                        statement.execute("drop table notes");
+                        statement.execute("drop function notes_mirror_to_partitioned()");
+                        statement.execute("alter table notes_partitioned rename to notes");
+                        statement.execute("alter table notes rename constraint notes_partitioned_pkey to notes_pkey");
+                        statement.execute("alter table notes rename constraint notes_partitioned_user_id_fkey "
+                                + "to notes_user_id_fkey");
+                        for (String[] index : INDEXES) {
+                            statement.execute(
+                                    "alter index %s rename to %s".formatted(temporaryName(index[0]), index[0]));
+                        }
+                    });
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        execute(connection, "analyze notes");
+        log.info("Swapped notes for the partitioned table");
+    }
+
+    private static boolean isPartitioned(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "select relkind = 'p' from pg_class where oid = 'notes'::regclass")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static String temporaryName(String indexName) {
+        return indexName.replaceFirst("^idx_notes_", "idx_notes_partitioned_");
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
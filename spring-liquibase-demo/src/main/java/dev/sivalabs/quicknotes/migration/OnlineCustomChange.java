@@ -0,0 +1,28 @@
+package dev.sivalabs.quicknotes.migration;
+
+import java.sql.Connection;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Base class of the custom changes that run {@link OnlineMigrations} steps. Concurrent index builds and backfills
+ * commit as they go, their change sets need runInTransaction="false".
+ */
+abstract class OnlineCustomChange implements CustomTaskChange {
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    static Connection connection(Database database) throws CustomChangeException {
+        if (database.getConnection() instanceof JdbcConnection jdbcConnection) {
+            return jdbcConnection.getUnderlyingConnection();
+        }
+        throw new CustomChangeException("Online changes need a JDBC connection, not " + database.getConnection());
+    }
+}
@@ -0,0 +1,327 @@
+package dev.sivalabs.quicknotes.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Building blocks for schema changes on large tables that must not block reads and writes, shared by the
+ * Flyway Java migrations and the Liquibase custom changes:
+ * <ul>
+ *     <li>DDL with a short {@code lock_timeout} that is retried, instead of queueing every other query of the table
+ *     behind an ACCESS EXCLUSIVE lock request that waits for a long running transaction</li>
+ *     <li>{@code CREATE INDEX CONCURRENTLY}, which replaces an invalid index left over by an earlier failed attempt</li>
+ *     <li>backfills that update rows, and copies that fill a replacement table, in short, throttled batches walking
+ *     the primary key</li>
+ * </ul>
+ * Index creation, backfills and copies commit as they go, so they need a connection in auto-commit mode,
+ * i.e. a Flyway migration that does not run in a transaction or a Liquibase change set with runInTransaction="false".
+ */
+public final class OnlineMigrations {
+    private static final Logger log = LoggerFactory.getLogger(OnlineMigrations.class);
+
+    public static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(2);
+    public static final int DEFAULT_ATTEMPTS = 5;
+
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private OnlineMigrations() {}
+
+    @FunctionalInterface
+    public interface SqlAction {
+        void execute(Statement statement) throws SQLException;
+    }
+
+    /**
+     * @param table      table to update, its primary key must be a bigint id column
+     * @param set        SET clause of the update, e.g. {@code "title_lower = lower(title)"}
+     * @param where      rows that still need the update, e.g. {@code "title_lower is null"}, keeps reruns cheap
+     * @param batchSize  ids per batch, each batch is its own transaction
+     * @param pause      pause between batches, gives replication and autovacuum room to keep up
+     */
+    public record Backfill(String table, String set, String where, int batchSize, Duration pause) {
+
+        public static Backfill of(String table, String set, String where) {
+            return new Backfill(table, set, where, 1000, Duration.ofMillis(100));
+        }
+
+        public Backfill withBatchSize(int batchSize) {
+            return new Backfill(table, set, where, batchSize, pause);
+        }
+
+        public Backfill withPause(Duration pause) {
+            return new Backfill(table, set, where, batchSize, pause);
+        }
+    }
+
+    /**
+     * @param source     table to copy, its primary key must be a bigint id column
+     * @param target     table to copy into, a unique key on it makes rows copied before be skipped
+     * @param columns    columns to copy, the same in both tables, e.g. {@code "id, title, content"}
+     * @param batchSize  ids per batch, each batch is its own transaction
+     * @param pause      pause between batches, gives replication and autovacuum room to keep up
+     */
+    public record Copy(String source, String target, String columns, int batchSize, Duration pause) {
+
+        public static Copy of(String source, String target, String columns) {
+            return new Copy(source, target, columns, 1000, Duration.ofMillis(100));
+        }
+
+        public Copy withBatchSize(int batchSize) {
+            return new Copy(source, target, columns, batchSize, pause);
+        }
+
+        public Copy withPause(Duration pause) {
+            return new Copy(source, target, columns, batchSize, pause);
+        }
+    }
+
+    /**
+     * @param estimatedRows row count estimate of the table from its statistics, -1 when it was never analyzed
+     */
+    public record BackfillProgress(String table, long scanned, long updated, long estimatedRows, Duration elapsed) {
+
+        public double percentDone() {
+            return estimatedRows > 0 ? Math.min(100.0, scanned * 100.0 / estimatedRows) : 0.0;
+        }
+    }
+
+    public static void executeWithLockTimeout(Connection connection, String sql) throws SQLException {
+        executeWithLockTimeout(connection, DEFAULT_LOCK_TIMEOUT, DEFAULT_ATTEMPTS, statement -> statement.execute(sql));
+    }
+
+    /**
+     * Runs the action with the given lock_timeout and retries it, after a growing pause, when a lock is not granted
+     * in time. Inside a transaction every attempt runs in its own savepoint, locks taken by earlier statements of
+     * the transaction are held while waiting, so keep such migrations short.
+     */
+    public static void executeWithLockTimeout(
+            Connection connection, Duration lockTimeout, int attempts, SqlAction action) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = autoCommit ? null : connection.setSavepoint();
+            try (Statement statement = connection.createStatement()) {
+                String scope = autoCommit ? "set" : "set local";
+                statement.execute(scope + " lock_timeout = '" + lockTimeout.toMillis() + "ms'");
+                action.execute(statement);
+                if (savepoint != null) {
+                    connection.releaseSavepoint(savepoint);
+                }
+                return;
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                if (!LOCK_NOT_AVAILABLE.equals(e.getSQLState()) || attempt >= attempts) {
+                    throw e;
+                }
+                Duration delay = lockTimeout.multipliedBy(attempt);
+                log.warn(
+                        "Lock not granted within {} ms (attempt {}/{}), retrying in {} ms",
+                        lockTimeout.toMillis(),
+                        attempt,
+                        attempts,
+                        delay.toMillis());
+                sleep(delay);
+            } finally {
+                if (autoCommit) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("reset lock_timeout");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the index with CREATE INDEX CONCURRENTLY, e.g.
+     * {@code createIndexConcurrently(connection, "idx_notes_user_updated", "notes (user_id, updated_at desc)")}.
+     * The build waits for transactions that started before it without blocking writes, so it runs without
+     * a lock_timeout. A failed concurrent build leaves an invalid index behind that is still maintained on every
+     * write, it is dropped before the index is built again.
+     */
+    public static void createIndexConcurrently(Connection connection, String indexName, String definition)
+            throws SQLException {
+        requireAutoCommit(connection, "CREATE INDEX CONCURRENTLY");
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            if (isInvalidIndex(connection, indexName)) {
+                log.warn("Dropping invalid index {} left over by an earlier attempt", indexName);
+                statement.execute("drop index concurrently if exists " + indexName);
+            }
+            statement.execute("create index concurrently if not exists " + indexName + " on " + definition);
+        }
+        log.info("Created index {} in {} ms", indexName, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public static void dropIndexConcurrently(Connection connection, String indexName) throws SQLException {
+        requireAutoCommit(connection, "DROP INDEX CONCURRENTLY");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop index concurrently if exists " + indexName);
+        }
+    }
+
+    public static BackfillProgress backfill(Connection connection, Backfill backfill) throws SQLException {
+        return backfill(connection, backfill, progress -> log.info(
+                "Backfill of {}: {} rows scanned, {} updated, about {}% done",
+                progress.table(), progress.scanned(), progress.updated(), Math.round(progress.percentDone())));
+    }
+
+    /**
+     * Walks the table in primary key order and updates the matching rows batch by batch, each batch in its own
+     * transaction. Safe to interrupt and rerun, rows that no longer match {@link Backfill#where()} are skipped.
+     */
+    public static BackfillProgress backfill(
+            Connection connection, Backfill backfill, Consumer<BackfillProgress> progressListener)
+            throws SQLException {
+        requireAutoCommit(connection, "A batched backfill");
+        String update = "update " + backfill.table() + " set " + backfill.set()
+                + " where id > ? and id <= ? and (" + backfill.where() + ")";
+        try (PreparedStatement updateStatement = connection.prepareStatement(update)) {
+            return inBatches(
+                    connection,
+                    backfill.table(),
+                    backfill.table(),
+                    backfill.batchSize(),
+                    backfill.pause(),
+                    (fromId, toId) -> {
+                        updateStatement.setLong(1, fromId);
+                        updateStatement.setLong(2, toId);
+                        return updateStatement.executeUpdate();
+                    },
+                    progressListener);
+        }
+    }
+
+    public static BackfillProgress copy(Connection connection, Copy copy) throws SQLException {
+        return copy(connection, copy, progress -> log.info(
+                "Copy of {}: {} rows scanned, {} copied, about {}% done",
+                progress.table(), progress.scanned(), progress.updated(), Math.round(progress.percentDone())));
+    }
+
+    /**
+     * Copies the rows of one table into another, batch by batch in primary key order, each batch in its own
+     * transaction, e.g. to fill a new table that replaces the source once it is complete. The rows of a batch are
+     * locked FOR SHARE while they are copied, so that a trigger mirroring writes of the source into the target
+     * never gets overtaken by an older version of a row. Rows the target already holds are skipped, which makes the
+     * copy safe to interrupt and rerun.
+     */
+    public static BackfillProgress copy(
+            Connection connection, Copy copy, Consumer<BackfillProgress> progressListener) throws SQLException {
+        requireAutoCommit(connection, "A batched copy");
+        String insert = "insert into " + copy.target() + " (" + copy.columns() + ") select " + copy.columns()
+                + " from " + copy.source() + " where id > ? and id <= ? for share on conflict do nothing";
+        try (PreparedStatement insertStatement = connection.prepareStatement(insert)) {
+            return inBatches(
+                    connection,
+                    copy.source(),
+                    copy.target(),
+                    copy.batchSize(),
+                    copy.pause(),
+                    (fromId, toId) -> {
+                        insertStatement.setLong(1, fromId);
+                        insertStatement.setLong(2, toId);
+                        return insertStatement.executeUpdate();
+                    },
+                    progressListener);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchAction {
+        // Processes the ids in (fromId, toId] and returns the number of changed rows
+        long execute(long fromId, long toId) throws SQLException;
+    }
+
+    private static BackfillProgress inBatches(
+            Connection connection,
+            String table,
+            String reportedTable,
+            int batchSize,
+            Duration pause,
+            BatchAction action,
+            Consumer<BackfillProgress> progressListener)
+            throws SQLException {
+        long start = System.nanoTime();
+        long estimatedRows = estimateRows(connection, table);
+        String nextBatch = "select count(*), max(id) from (select id from " + table
+                + " where id > ? order by id limit ?) batch";
+        long scanned = 0;
+        long updated = 0;
+        long lastId = Long.MIN_VALUE;
+        BackfillProgress progress = new BackfillProgress(reportedTable, 0, 0, estimatedRows, Duration.ZERO);
+        try (PreparedStatement batchQuery = connection.prepareStatement(nextBatch)) {
+            while (true) {
+                batchQuery.setLong(1, lastId);
+                batchQuery.setInt(2, batchSize);
+                long batchRows;
+                long batchEndId;
+                try (ResultSet rs = batchQuery.executeQuery()) {
+                    rs.next();
+                    batchRows = rs.getLong(1);
+                    batchEndId = rs.getLong(2);
+                }
+                if (batchRows == 0) {
+                    break;
+                }
+                updated += action.execute(lastId, batchEndId);
+                scanned += batchRows;
+                lastId = batchEndId;
+                progress = new BackfillProgress(
+                        reportedTable, scanned, updated, estimatedRows, Duration.ofNanos(System.nanoTime() - start));
+                progressListener.accept(progress);
+                sleep(pause);
+            }
+        }
+        return progress;
+    }
+
+    private static boolean isInvalidIndex(Connection connection, String indexName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                select not i.indisvalid from pg_index i
+                join pg_class c on c.oid = i.indexrelid
+                where c.relname = ? and pg_table_is_visible(c.oid)
+                """)) {
+            statement.setString(1, indexName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static long estimateRows(Connection connection, String table) throws SQLException {
+        try (PreparedStatement statement =
+                connection.prepareStatement("select reltuples::bigint from pg_class where oid = ?::regclass")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }
+    }
+
+    private static void requireAutoCommit(Connection connection, String operation) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            throw new IllegalStateException(operation + " cannot run inside a transaction, use a Flyway migration "
+                    + "that does not execute in a transaction or a Liquibase change set with runInTransaction=\"false\"");
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting between migration steps", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.sivalabs.quicknotes.migration;
+
+import java.sql.SQLException;
+import liquibase.database.Database;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+
+/**
+ * {@code <customChange class="dev.sivalabs.quicknotes.migration.PartitionNotesChange"/>}
+ * in a change set with runInTransaction="false", see {@link NotesPartitioning}.
+ */
+public class PartitionNotesChange extends OnlineCustomChange {
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        try {
+            NotesPartitioning.migrate(connection(database));
+        } catch (SQLException | IllegalStateException e) {
+            throw new CustomChangeException("Could not partition notes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "notes partitioned";
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
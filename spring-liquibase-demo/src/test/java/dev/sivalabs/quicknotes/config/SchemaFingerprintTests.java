@@ -0,0 +1,82 @@
+package dev.sivalabs.quicknotes.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(webEnvironment = NONE, properties = "app.migrations.mode=skip-if-current")
+@Import(TestcontainersConfig.class)
+class SchemaFingerprintTests {
+
+    @Autowired
+    private LiquibaseConfig.SchemaFingerprintPostProcessor postProcessor;
+
+    @Autowired
+    private SpringLiquibase liquibase;
+
+    @Autowired
+    private MigrationTimings timings;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldRecordFingerprintAndPhaseTimingsOnStartup() {
+        assertThat(storedFingerprint()).hasSize(64);
+        assertThat(timings.phases()).containsKeys("fingerprint", "migrate", "record");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timings.bindTo(registry);
+        assertThat(registry.get(MigrationTimings.MIGRATION_METRIC)
+                        .tag("phase", "migrate")
+                        .timer()
+                        .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipLiquibaseWhenFingerprintIsCurrent() throws Exception {
+        Timestamp recordedAt = recordedAt();
+
+        runLiquibase();
+
+        assertThat(recordedAt()).isEqualTo(recordedAt);
+    }
+
+    @Test
+    void shouldRunLiquibaseWhenFingerprintIsOutdated() throws Exception {
+        String fingerprint = storedFingerprint();
+        jdbcTemplate.update("update schema_fingerprint set fingerprint = 'outdated' where migrator = 'liquibase'");
+
+        runLiquibase();
+
+        assertThat(storedFingerprint()).isEqualTo(fingerprint);
+    }
+
+    // Initializes the SpringLiquibase bean again, the way the container does on startup
+    private void runLiquibase() throws Exception {
+        liquibase.setShouldRun(true);
+        postProcessor.postProcessBeforeInitialization(liquibase, "liquibase");
+        liquibase.afterPropertiesSet();
+        postProcessor.postProcessAfterInitialization(liquibase, "liquibase");
+    }
+
+    private String storedFingerprint() {
+        return jdbcTemplate.queryForObject(
+                "select fingerprint from schema_fingerprint where migrator = 'liquibase'", String.class);
+    }
+
+    private Timestamp recordedAt() {
+        return jdbcTemplate.queryForObject(
+                "select updated_at from schema_fingerprint where migrator = 'liquibase'", Timestamp.class);
+    }
+}
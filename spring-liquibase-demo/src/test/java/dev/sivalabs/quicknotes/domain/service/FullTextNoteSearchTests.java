@@ -0,0 +1,64 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(webEnvironment = NONE, properties = "app.search.engine=full_text")
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+class FullTextNoteSearchTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    private static final Long REGULAR_USER_ID = 2L;
+
+    @Test
+    void shouldSearchNotesExcludingArchived() {
+        PagedResult<Note> result = noteService.searchNotes(REGULAR_USER_ID, "Spring", 1, false);
+
+        assertThat(result.data()).isNotEmpty();
+        assertThat(result.data()).allMatch(note -> !note.getArchived());
+        assertThat(result.data()).anyMatch(note -> note.getTitle().equals("Learning Goals 2025"));
+    }
+
+    @Test
+    void shouldSearchNotesIncludingArchived() {
+        // "Book Club Discussion" is archived
+        PagedResult<Note> excluding = noteService.searchNotes(REGULAR_USER_ID, "Atomic Habits", 1, false);
+        PagedResult<Note> including = noteService.searchNotes(REGULAR_USER_ID, "Atomic Habits", 1, true);
+
+        assertThat(excluding.data()).isEmpty();
+        assertThat(including.data()).anyMatch(note -> note.getTitle().contains("Book Club"));
+    }
+
+    @Test
+    void shouldMatchStemmedWords() {
+        // "meetings" and "meeting" share the same lexeme
+        PagedResult<Note> result = noteService.searchNotes(1L, "meetings", 1, false);
+
+        assertThat(result.data()).anyMatch(note -> note.getTitle().equals("Meeting Notes - Team Sync"));
+    }
+
+    @Test
+    void shouldSearchSummariesWithFullTextEngine() {
+        PagedResult<Note> notes = noteService.searchNotes(1L, "meetings", 1, false);
+        PagedResult<NoteSummary> summaries = noteService.searchNoteSummaries(1L, "meetings", 1, false);
+
+        assertThat(summaries.data())
+                .extracting(NoteSummary::id)
+                .containsExactlyElementsOf(notes.data().stream().map(Note::getId).toList());
+        assertThat(summaries.totalElements()).isEqualTo(notes.totalElements());
+        assertThat(summaries.data()).anyMatch(summary -> summary.title().equals("Meeting Notes - Team Sync"));
+    }
+}
@@ -0,0 +1,231 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
+import dev.sivalabs.quicknotes.domain.model.NoteSummary;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import dev.sivalabs.quicknotes.domain.model.UpdateNoteCmd;
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndex;
+import dev.sivalabs.quicknotes.domain.search.NoteSearchIndexStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(
+        webEnvironment = NONE,
+        properties = {"app.search.engine=FULL_TEXT", "app.search.in-memory.enabled=true"})
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+class InMemoryNoteSearchTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteSearchIndex noteSearchIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final Long ADMIN_USER_ID = 1L;
+    private static final Long REGULAR_USER_ID = 2L;
+
+    @BeforeEach
+    void setUp() {
+        // test-data.sql reloads the notes table before every test
+        noteSearchIndex.evictAll();
+    }
+
+    @Test
+    void shouldFallBackToSqlWhenIndexIsCold() {
+        assertThat(noteSearchIndex.search(REGULAR_USER_ID, "spring", false)).isNull();
+
+        PagedResult<Note> result = noteService.searchNotes(REGULAR_USER_ID, "Spring", 1, false);
+
+        assertThat(result.data()).anyMatch(note -> note.getTitle().equals("Learning Goals 2025"));
+    }
+
+    @Test
+    void shouldSearchWarmIndex() {
+        noteSearchIndex.warmUp(REGULAR_USER_ID);
+
+        PagedResult<Note> result = noteService.searchNotes(REGULAR_USER_ID, "spring boot", 1, false);
+
+        assertThat(result.data()).singleElement().satisfies(note -> assertThat(note.getTitle())
+                .isEqualTo("Learning Goals 2025"));
+        assertThat(noteSearchIndex.stats().hits()).isPositive();
+
+        long hits = noteSearchIndex.stats().hits();
+        PagedResult<NoteSummary> summaries = noteService.searchNoteSummaries(REGULAR_USER_ID, "spring boot", 1, false);
+        assertThat(summaries.data()).extracting(NoteSummary::title).containsExactly("Learning Goals 2025");
+        assertThat(noteSearchIndex.stats().hits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void shouldPageWarmIndexResultsNewestFirst() {
+        noteService.importNotes(
+                ADMIN_USER_ID,
+                IntStream.rangeClosed(1, 25).mapToObj(i -> new CreateNoteCmd(ADMIN_USER_ID, "Standup " + i, "Notes")));
+        noteSearchIndex.warmUp(ADMIN_USER_ID);
+
+        PagedResult<Note> page1 = noteService.searchNotes(ADMIN_USER_ID, "standup", 1, false);
+        PagedResult<Note> page3 = noteService.searchNotes(ADMIN_USER_ID, "standup", 3, false);
+
+        assertThat(page1.data()).hasSize(10);
+        assertThat(page1.totalElements()).isEqualTo(25);
+        assertThat(page1.data().getFirst().getTitle()).isEqualTo("Standup 25");
+        assertThat(page3.data()).hasSize(5);
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "", 1, false).data()).isEmpty();
+    }
+
+    @Test
+    void shouldReturnSamePagesWarmAndCold() {
+        // Words repeated at different positions of titles and contents, so that the notes rank differently
+        List<String> words = List.of(
+                "running", "runs", "run", "planning", "plans", "meeting", "meetings", "deployed", "deploy",
+                "review", "reviews", "the", "and", "of");
+        Random random = new Random(42);
+        noteService.importNotes(
+                ADMIN_USER_ID,
+                IntStream.rangeClosed(1, 60)
+                        .mapToObj(i -> new CreateNoteCmd(
+                                ADMIN_USER_ID, sentence(random, words, 3), sentence(random, words, 15))));
+
+        List<String> queries = new ArrayList<>(List.of(
+                "running", "run", "plans planning", "meetings review", "the deployed", "the", "review runs plan",
+                "project", "welcome notes"));
+        for (int i = 0; i < 10; i++) {
+            queries.add(sentence(random, words, 1 + random.nextInt(3)));
+        }
+        for (String query : queries) {
+            List<List<Long>> cold = pages(ADMIN_USER_ID, query, true);
+
+            noteSearchIndex.warmUp(ADMIN_USER_ID);
+            long hits = noteSearchIndex.stats().hits();
+            List<List<Long>> warm = pages(ADMIN_USER_ID, query, false);
+
+            assertThat(noteSearchIndex.stats().hits()).as(query).isEqualTo(hits + warm.size());
+            assertThat(warm).as(query).isEqualTo(cold);
+        }
+        // Stemmed like search_vector: "running" also finds "runs" and "run", on more than one page
+        assertThat(pages(ADMIN_USER_ID, "running", false)).hasSizeGreaterThan(1);
+        assertThat(pages(ADMIN_USER_ID, "the", false)).containsExactly(List.of());
+    }
+
+    @Test
+    void shouldNotAnswerFromIndexOutdatedByAnotherInstance() {
+        noteSearchIndex.warmUp(REGULAR_USER_ID);
+        assertThat(noteService.searchNotes(REGULAR_USER_ID, "carbonara", 1, false).data()).hasSize(1);
+
+        // What NoteService on another instance does when it deletes the note
+        jdbcTemplate.update("delete from notes where id = 16");
+        jdbcTemplate.update(
+                "update user_note_stats set active_count = active_count - 1, version = version + 1 where user_id = ?",
+                REGULAR_USER_ID);
+
+        long misses = noteSearchIndex.stats().misses();
+        assertThat(noteService.searchNotes(REGULAR_USER_ID, "carbonara", 1, false).data()).isEmpty();
+        assertThat(noteSearchIndex.stats().misses()).isEqualTo(misses + 1);
+
+        noteSearchIndex.warmUp(REGULAR_USER_ID);
+        assertThat(noteSearchIndex.search(REGULAR_USER_ID, "carbonara", false)).isEmpty();
+    }
+
+    @Test
+    void shouldExcludeArchivedNotesUnlessRequested() {
+        noteSearchIndex.warmUp(REGULAR_USER_ID);
+
+        assertThat(noteService.searchNotes(REGULAR_USER_ID, "atomic", 1, false).data()).isEmpty();
+        assertThat(noteService.searchNotes(REGULAR_USER_ID, "atomic", 1, true).data())
+                .anyMatch(note -> note.getTitle().contains("Book Club"));
+    }
+
+    @Test
+    void shouldKeepIndexCurrentOnWrites() {
+        noteSearchIndex.warmUp(ADMIN_USER_ID);
+        long misses = noteSearchIndex.stats().misses();
+
+        Note created = noteService.createNote(new CreateNoteCmd(ADMIN_USER_ID, "Quarterly OKR", "Kickoff agenda"));
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "okr", 1, false).data())
+                .extracting(Note::getId)
+                .containsExactly(created.getId());
+
+        noteService.updateNote(new UpdateNoteCmd(created.getId(), ADMIN_USER_ID, "Yearly plan", "Kickoff agenda"));
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "okr", 1, false).data()).isEmpty();
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "yearly", 1, false).data()).hasSize(1);
+
+        noteService.archiveNote(created.getId(), ADMIN_USER_ID);
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "yearly", 1, false).data()).isEmpty();
+
+        noteService.unarchiveNote(created.getId(), ADMIN_USER_ID);
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "yearly", 1, false).data()).hasSize(1);
+
+        noteService.deleteNote(created.getId(), ADMIN_USER_ID);
+        assertThat(noteService.searchNotes(ADMIN_USER_ID, "yearly", 1, true).data()).isEmpty();
+
+        // Every search was answered by the index, the writes were applied to it without a reload
+        assertThat(noteSearchIndex.stats().misses()).isEqualTo(misses);
+    }
+
+    @Test
+    void shouldReportIndexSize() {
+        noteSearchIndex.warmUp(ADMIN_USER_ID);
+
+        NoteSearchIndexStats stats = noteSearchIndex.stats();
+
+        assertThat(stats.users()).isEqualTo(1);
+        assertThat(stats.notes()).isEqualTo(12);
+        assertThat(stats.terms()).isPositive();
+        assertThat(stats.estimatedBytes()).isPositive().isLessThanOrEqualTo(stats.maxBytes());
+        assertThat(meterRegistry.get("quicknotes.search.index").tag("kind", "notes").gauge().value())
+                .isEqualTo(12);
+        assertThat(meterRegistry
+                        .get("quicknotes.search.index.size")
+                        .tag("limit", "estimated")
+                        .gauge()
+                        .value())
+                .isEqualTo(stats.estimatedBytes());
+    }
+
+    // All pages of the search; cold pages are always read with SQL
+    private List<List<Long>> pages(Long userId, String query, boolean cold) {
+        List<List<Long>> pages = new ArrayList<>();
+        PagedResult<Note> page;
+        int pageNumber = 1;
+        do {
+            if (cold) {
+                noteSearchIndex.evictAll();
+            }
+            page = noteService.searchNotes(userId, query, pageNumber++, true);
+            pages.add(ids(page));
+        } while (page.hasNext());
+        return pages;
+    }
+
+    private static String sentence(Random random, List<String> words, int length) {
+        return IntStream.range(0, length)
+                .mapToObj(i -> words.get(random.nextInt(words.size())))
+                .collect(Collectors.joining(" "));
+    }
+
+    private static List<Long> ids(PagedResult<Note> result) {
+        return result.data().stream().map(Note::getId).toList();
+    }
+}
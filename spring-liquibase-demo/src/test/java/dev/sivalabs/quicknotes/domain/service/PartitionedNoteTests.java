@@ -0,0 +1,154 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.PagedResult;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(webEnvironment = NONE)
+@Import(TestcontainersConfig.class)
+@ActiveProfiles("partitioned")
+@Sql("/test-data.sql")
+class PartitionedNoteTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NotePartitionMaintenance partitionMaintenance;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final Long ADMIN_USER_ID = 1L;
+
+    @Test
+    void shouldFindNotesOfPartitionedTable() {
+        PagedResult<Note> active = noteService.findUserNotes(ADMIN_USER_ID, 1);
+        PagedResult<Note> archived = noteService.findUserArchivedNotes(ADMIN_USER_ID, 1);
+
+        assertThat(active.totalElements()).isEqualTo(10);
+        assertThat(archived.totalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldMoveNoteToArchivePartitionWhenArchived() {
+        assertThat(partitionOf(1L)).isEqualTo("notes_active");
+
+        noteService.archiveNote(1L, ADMIN_USER_ID);
+
+        assertThat(partitionOf(1L)).startsWith("notes_archived_p");
+        assertThat(noteService.getNoteById(1L, ADMIN_USER_ID).getArchived()).isTrue();
+    }
+
+    @Test
+    void shouldOnlyScanActivePartitionForActiveNotes() {
+        List<String> plan = explain("""
+                select * from notes n where n.user_id = 1
+                and (n.archived = false or n.archived = false)
+                order by n.created_at desc limit 10
+                """);
+
+        assertThat(plan).anyMatch(line -> line.contains("notes_active"));
+        assertThat(plan).noneMatch(line -> line.contains("notes_archived"));
+    }
+
+    @Test
+    void shouldOnlyProbeOnePartitionForNoteById() {
+        List<String> plan = explain("""
+                select * from notes n where n.id = 1 and n.user_id = 1 and n.archived = false
+                """);
+
+        assertThat(plan).anyMatch(line -> line.contains("notes_active"));
+        assertThat(plan).noneMatch(line -> line.contains("notes_archived"));
+    }
+
+    @Test
+    void shouldFindArchivedNoteById() {
+        noteService.archiveNote(1L, ADMIN_USER_ID);
+
+        assertThat(noteService.getNoteById(1L, ADMIN_USER_ID).getArchived()).isTrue();
+        assertThat(noteService.isNoteOwnedBy(1L, ADMIN_USER_ID)).isTrue();
+
+        noteService.unarchiveNote(1L, ADMIN_USER_ID);
+        noteService.deleteNote(1L, ADMIN_USER_ID);
+
+        assertThat(noteService.isNoteOwnedBy(1L, ADMIN_USER_ID)).isFalse();
+    }
+
+    @Test
+    void shouldOnlyScanMatchingMonthsForArchivedNotes() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        List<String> plan = explain("""
+                select * from notes n where n.user_id = 1 and n.archived = true
+                and n.created_at >= '%s'
+                order by n.created_at desc limit 10
+                """.formatted(currentMonth.atDay(1)));
+
+        assertThat(plan).noneMatch(line -> line.contains("notes_active"));
+        assertThat(plan).noneMatch(line -> line.contains("notes_archived_p" + format(currentMonth.minusMonths(1))));
+    }
+
+    @Test
+    void shouldCreateAndDetachArchivePartitions() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        YearMonth future = currentMonth.plusMonths(6);
+
+        List<String> created = partitionMaintenance.createPartitions(currentMonth, future);
+
+        assertThat(created).contains("notes_archived_p" + format(future));
+        assertThat(partitionMaintenance.findPartitionMonths()).contains(currentMonth, future);
+
+        YearMonth oldest = partitionMaintenance.findPartitionMonths().getFirst();
+        List<String> detached = partitionMaintenance.detachPartitionsBefore(oldest.plusMonths(1));
+
+        assertThat(detached).containsExactly("notes_archived_p" + format(oldest));
+        assertThat(partitionMaintenance.findPartitionMonths()).doesNotContain(oldest);
+        assertThat(noteService.findUserArchivedNotes(ADMIN_USER_ID, 1).totalElements())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void shouldApplyContentCompressionAfterPartitioning() {
+        // The partitioning migration rebuilds notes, the migration after it applies the settings again
+        assertThat(compressionSettingsOf("notes_active")).isEqualTo("l toast_tuple_target=4096");
+
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).plusMonths(12);
+        String partition = "notes_archived_p" + format(month);
+        partitionMaintenance.createPartitions(month, month);
+
+        assertThat(compressionSettingsOf(partition)).isEqualTo("l toast_tuple_target=4096");
+    }
+
+    private String compressionSettingsOf(String table) {
+        return jdbcTemplate.queryForObject("""
+                select a.attcompression || ' ' || array_to_string(c.reloptions, ',')
+                from pg_class c join pg_attribute a on a.attrelid = c.oid and a.attname = 'content'
+                where c.oid = ?::regclass
+                """, String.class, table);
+    }
+
+    private String partitionOf(Long noteId) {
+        return jdbcTemplate.queryForObject("select tableoid::regclass::text from notes where id = ?", String.class, noteId);
+    }
+
+    private List<String> explain(String sql) {
+        return jdbcTemplate.queryForList("explain " + sql, String.class);
+    }
+
+    private static String format(YearMonth month) {
+        return "%d%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,93 @@
+package dev.sivalabs.quicknotes.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.domain.entity.Note;
+import dev.sivalabs.quicknotes.domain.model.UpdateNoteCmd;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(
+        webEnvironment = NONE,
+        properties = {
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+            "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+            "spring.jpa.properties.hibernate.generate_statistics=true"
+        })
+@Import(TestcontainersConfig.class)
+@Sql("/test-data.sql")
+class SecondLevelCacheTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private static final Long ADMIN_USER_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // test-data.sql bypasses Hibernate, so cached state from previous tests must be dropped
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldServeRepeatedNoteLookupsFromCache() {
+        noteService.getNoteById(1L, ADMIN_USER_ID);
+        noteService.getNoteById(1L, ADMIN_USER_ID);
+
+        assertThat(statistics.getDomainDataRegionStatistics("notes").getHitCount())
+                .isPositive();
+    }
+
+    @Test
+    void shouldInvalidateCachedNoteOnUpdate() {
+        noteService.getNoteById(1L, ADMIN_USER_ID);
+
+        noteService.updateNote(new UpdateNoteCmd(1L, ADMIN_USER_ID, "Cached title", "Cached content"));
+
+        assertThat(noteService.getNoteById(1L, ADMIN_USER_ID).getTitle()).isEqualTo("Cached title");
+    }
+
+    @Test
+    void shouldKeepOtherCachedNotesOnWrites() {
+        noteService.getNoteById(1L, ADMIN_USER_ID);
+        noteService.getNoteById(2L, ADMIN_USER_ID);
+
+        noteService.updateNote(new UpdateNoteCmd(1L, ADMIN_USER_ID, "Cached title", "Cached content"));
+        noteService.archiveNote(1L, ADMIN_USER_ID);
+        noteService.deleteNote(1L, ADMIN_USER_ID);
+
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Note.class, 1L)).isFalse();
+        assertThat(cache.contains(Note.class, 2L)).isTrue();
+    }
+
+    @Test
+    void shouldCacheUserByEmailQuery() {
+        userService.findByEmail("admin@gmail.com");
+        userService.findByEmail("admin@gmail.com");
+
+        assertThat(statistics.getQueryRegionStatistics("user-by-email").getHitCount())
+                .isPositive();
+    }
+}
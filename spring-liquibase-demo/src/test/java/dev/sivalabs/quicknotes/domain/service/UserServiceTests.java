@@ -5,6 +5,7 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 
 import dev.sivalabs.quicknotes.TestcontainersConfig;
 import dev.sivalabs.quicknotes.domain.entity.User;
+import dev.sivalabs.quicknotes.domain.model.CreateNoteCmd;
 import dev.sivalabs.quicknotes.domain.model.CreateUserCmd;
 import dev.sivalabs.quicknotes.domain.model.Role;
 import java.util.Optional;
@@ -22,6 +23,9 @@ class UserServiceTests {
     @Autowired
     UserService userService;
 
+    @Autowired
+    NoteService noteService;
+
     @Test
     void shouldFindUserByEmail() {
         Optional<User> user = userService.findByEmail("admin@gmail.com");
@@ -59,6 +63,10 @@ class UserServiceTests {
         assertThat(createdUser.get().getName()).isEqualTo("John Doe");
         assertThat(createdUser.get().getEmail()).isEqualTo("john@example.com");
         assertThat(createdUser.get().getRole()).isEqualTo(Role.ROLE_USER);
+        // Note writes need the user's stats row, created along with the user
+        Long userId = createdUser.get().getId();
+        noteService.createNote(new CreateNoteCmd(userId, "First note", "Hello"));
+        assertThat(noteService.getNoteStats(userId).activeCount()).isEqualTo(1);
     }
 
     @Test
@@ -0,0 +1,87 @@
+package dev.sivalabs.quicknotes.domain.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.hypersistence.tsid.TSID;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TsidGeneratorTests {
+
+    @Test
+    void shouldGenerateIncreasingIdsOnOneThread() {
+        TsidGenerator generator = new TsidGenerator(7, 10, 4);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long next = generator.nextId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsAcrossThreads() throws InterruptedException {
+        TsidGenerator generator = new TsidGenerator(7, 10, 4);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8, idsPerThread = 50_000;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+
+        assertThat(ids).hasSize(threads * idsPerThread);
+    }
+
+    @Test
+    void shouldNotCollideAcrossNodes() {
+        TsidGenerator node1 = new TsidGenerator(1, 10, 1);
+        TsidGenerator node2 = new TsidGenerator(2, 10, 1);
+
+        long[] ids1 = node1.nextIds(1_000);
+        long[] ids2 = node2.nextIds(1_000);
+
+        assertThat(ids1).doesNotContainAnyElementsOf(Arrays.stream(ids2).boxed().toList());
+    }
+
+    @Test
+    void shouldReserveIncreasingIdsInBatches() {
+        TsidGenerator generator = new TsidGenerator(7, 10, 4);
+
+        long[] ids = generator.nextIds(5_000);
+
+        assertThat(ids).hasSize(5_000).isSorted().doesNotHaveDuplicates();
+        assertThat(generator.nextId()).isGreaterThan(ids[ids.length - 1]);
+    }
+
+    @Test
+    void shouldBeCompatibleWithHypersistenceTsid() {
+        TsidGenerator generator = new TsidGenerator(7, 10, 4);
+
+        Instant instant = TSID.from(generator.nextId()).getInstant();
+
+        assertThat(Duration.between(instant, Instant.now()).abs()).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldRejectNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new TsidGenerator(1024, 10, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TsidGenerator(1, 10, 3)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
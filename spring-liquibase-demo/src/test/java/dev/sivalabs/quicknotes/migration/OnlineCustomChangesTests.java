@@ -0,0 +1,89 @@
+package dev.sivalabs.quicknotes.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import java.sql.Connection;
+import javax.sql.DataSource;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(webEnvironment = NONE)
+@Import(TestcontainersConfig.class)
+class OnlineCustomChangesTests {
+    private static final String TABLE = "online_change_test";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("create table " + TABLE + " (id bigint primary key, title text not null)");
+        jdbcTemplate.update("insert into " + TABLE + "(id, title) select g, 'Note ' || g from generate_series(1, 250) g");
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("drop table if exists " + TABLE);
+    }
+
+    @Test
+    void shouldRunOnlineChangesOutsideTransaction() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database =
+                    DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            var addColumn = new LockTimeoutSqlChange();
+            addColumn.setSql("alter table " + TABLE + " add column title_lower text");
+            assertThat(addColumn.validate(database).hasErrors()).isFalse();
+            addColumn.execute(database);
+
+            var backfill = new BatchedBackfillChange();
+            backfill.setTableName(TABLE);
+            backfill.setSet("title_lower = lower(title)");
+            backfill.setWhere("title_lower is null");
+            backfill.setBatchSize(100);
+            backfill.setPauseMillis(0L);
+            assertThat(backfill.validate(database).hasErrors()).isFalse();
+            backfill.execute(database);
+            assertThat(backfill.getConfirmationMessage()).startsWith("Backfilled 250 of 250 rows");
+
+            var index = new CreateIndexConcurrentlyChange();
+            index.setIndexName("idx_online_change_test_title_lower");
+            index.setDefinition(TABLE + " (title_lower)");
+            index.execute(database);
+        }
+
+        assertThat(jdbcTemplate.queryForObject(
+                        "select count(*) from " + TABLE + " where title_lower = lower(title)", Long.class))
+                .isEqualTo(250);
+        assertThat(jdbcTemplate.queryForObject(
+                        "select count(*) from pg_indexes where indexname = 'idx_online_change_test_title_lower'",
+                        Long.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldRequireBackfillSettings() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database =
+                    DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            var backfill = new BatchedBackfillChange();
+            backfill.setTableName(TABLE);
+
+            assertThat(backfill.validate(database).getErrorMessages()).hasSize(2);
+        }
+    }
+}
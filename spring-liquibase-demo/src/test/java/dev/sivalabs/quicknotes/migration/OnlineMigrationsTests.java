@@ -0,0 +1,207 @@
+package dev.sivalabs.quicknotes.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+import dev.sivalabs.quicknotes.TestcontainersConfig;
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.Backfill;
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.BackfillProgress;
+import dev.sivalabs.quicknotes.migration.OnlineMigrations.Copy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(webEnvironment = NONE)
+@Import(TestcontainersConfig.class)
+class OnlineMigrationsTests {
+    private static final String TABLE = "online_migration_test";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute("create table " + TABLE + " (id bigint primary key, title text not null, title_lower text)");
+        jdbcTemplate.update("insert into " + TABLE + "(id, title) select g, 'Note ' || g from generate_series(1, 1000) g");
+        jdbcTemplate.execute("analyze " + TABLE);
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("drop table if exists " + TABLE);
+    }
+
+    @Test
+    void shouldBackfillInBatches() throws SQLException {
+        Backfill backfill = Backfill.of(TABLE, "title_lower = lower(title)", "title_lower is null")
+                .withBatchSize(100)
+                .withPause(Duration.ZERO);
+        List<BackfillProgress> progress = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            BackfillProgress result = OnlineMigrations.backfill(connection, backfill, progress::add);
+
+            assertThat(result.scanned()).isEqualTo(1000);
+            assertThat(result.updated()).isEqualTo(1000);
+            assertThat(progress).hasSize(10);
+            assertThat(progress.getFirst().updated()).isEqualTo(100);
+            assertThat(progress.getLast().percentDone()).isEqualTo(100.0);
+
+            // Rerunning only scans, every row is already done
+            assertThat(OnlineMigrations.backfill(connection, backfill, p -> {}).updated())
+                    .isZero();
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                        "select count(*) from " + TABLE + " where title_lower = lower(title)", Long.class))
+                .isEqualTo(1000);
+    }
+
+    @Test
+    void shouldCopyInBatchesAndSkipCopiedRows() throws SQLException {
+        jdbcTemplate.execute("create table " + TABLE + "_copy (id bigint primary key, title text not null)");
+        // Already copied, e.g. by an earlier run or a trigger mirroring writes
+        jdbcTemplate.update("insert into " + TABLE + "_copy(id, title) select id, title from " + TABLE
+                + " where id <= 250");
+        Copy copy = Copy.of(TABLE, TABLE + "_copy", "id, title").withBatchSize(100).withPause(Duration.ZERO);
+
+        try (Connection connection = dataSource.getConnection()) {
+            BackfillProgress result = OnlineMigrations.copy(connection, copy, p -> {});
+
+            assertThat(result.scanned()).isEqualTo(1000);
+            assertThat(result.updated()).isEqualTo(750);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from " + TABLE + "_copy", Long.class))
+                    .isEqualTo(1000);
+        } finally {
+            jdbcTemplate.execute("drop table " + TABLE + "_copy");
+        }
+    }
+
+    @Test
+    void shouldReplaceInvalidIndexLeftByFailedConcurrentBuild() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            // Duplicate keys make the concurrent build fail after creating the index entry
+            assertThatThrownBy(() -> statement.execute(
+                            "create unique index concurrently idx_online_migration_test on " + TABLE + " ((id % 10))"))
+                    .isInstanceOf(SQLException.class);
+            assertThat(isValidIndex("idx_online_migration_test")).isFalse();
+
+            OnlineMigrations.createIndexConcurrently(connection, "idx_online_migration_test", TABLE + " (title)");
+        }
+
+        assertThat(isValidIndex("idx_online_migration_test")).isTrue();
+    }
+
+    @Test
+    void shouldRetryWhenLockIsNotGranted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread lockHolder = holdExclusiveLock(release);
+        Thread.ofVirtual().start(() -> {
+            sleep(Duration.ofMillis(500));
+            release.countDown();
+        });
+
+        try (Connection connection = dataSource.getConnection()) {
+            OnlineMigrations.executeWithLockTimeout(
+                    connection,
+                    Duration.ofMillis(100),
+                    10,
+                    statement -> statement.execute("alter table " + TABLE + " add column archived boolean"));
+        }
+        lockHolder.join();
+
+        assertThat(jdbcTemplate.queryForObject(
+                        "select count(*) from information_schema.columns where table_name = ? and column_name = 'archived'",
+                        Long.class,
+                        TABLE))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldGiveUpAfterLastAttempt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread lockHolder = holdExclusiveLock(release);
+        try (Connection connection = dataSource.getConnection()) {
+            assertThatThrownBy(() -> OnlineMigrations.executeWithLockTimeout(
+                            connection,
+                            Duration.ofMillis(50),
+                            2,
+                            statement -> statement.execute("alter table " + TABLE + " add column archived boolean")))
+                    .isInstanceOfSatisfying(
+                            SQLException.class, e -> assertThat(e.getSQLState()).isEqualTo("55P03"));
+        } finally {
+            release.countDown();
+            lockHolder.join();
+        }
+    }
+
+    @Test
+    void shouldRejectConcurrentIndexInsideTransaction() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                assertThatThrownBy(() -> OnlineMigrations.createIndexConcurrently(
+                                connection, "idx_online_migration_test", TABLE + " (title)"))
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessageContaining("runInTransaction");
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private boolean isValidIndex(String indexName) {
+        return jdbcTemplate.queryForObject(
+                "select i.indisvalid from pg_index i join pg_class c on c.oid = i.indexrelid where c.relname = ?",
+                Boolean.class,
+                indexName);
+    }
+
+    // Holds an ACCESS EXCLUSIVE lock on the table, like a long running migration would, until released
+    private Thread holdExclusiveLock(CountDownLatch release) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread lockHolder = Thread.ofVirtual().start(() -> {
+            try (Connection other = dataSource.getConnection()) {
+                other.setAutoCommit(false);
+                try (Statement statement = other.createStatement()) {
+                    statement.execute("lock table " + TABLE + " in access exclusive mode");
+                    locked.countDown();
+                    release.await();
+                } finally {
+                    other.rollback();
+                    other.setAutoCommit(true);
+                }
+            } catch (SQLException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        return lockHolder;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
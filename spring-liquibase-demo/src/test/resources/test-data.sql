@@ -39,3 +39,20 @@ insert into notes(id, title, content, user_id, archived, created_at) values
 (33, 'Career Development', 'Attend workshops, get certification, build portfolio, network with professionals, update resume.', 2, false, CURRENT_TIMESTAMP - INTERVAL '1 day'),
 (34, 'Music Playlist', 'Create workout playlist, study focus music, relaxing evening tunes, road trip songs.', 2, false, CURRENT_TIMESTAMP - INTERVAL '12 hours'),
 (35, 'Random Thoughts', 'Ideas come at unexpected moments. Keep this app handy to capture them instantly!', 2, false, CURRENT_TIMESTAMP);
+
+-- The notes above bypass NoteService, recount the note stats of every user
+insert into user_note_stats (user_id, active_count, archived_count, content_bytes, last_modified_at)
+select u.id,
+       count(n.id) filter (where not n.archived),
+       count(n.id) filter (where n.archived),
+       coalesce(sum(octet_length(n.content)), 0),
+       max(coalesce(n.updated_at, n.created_at))
+from users u
+left join notes n on n.user_id = u.id
+group by u.id
+on conflict (user_id) do update set
+    active_count = excluded.active_count,
+    archived_count = excluded.archived_count,
+    content_bytes = excluded.content_bytes,
+    last_modified_at = excluded.last_modified_at,
+    version = user_note_stats.version + 1;